@@ -0,0 +1,118 @@
+package org.example.BusinessLogic;
+
+import org.example.Connection.UnitOfWork;
+import org.example.DataAccess.BatchResult;
+import org.example.DataAccess.BillDAO;
+import org.example.Model.Bill;
+import org.example.Model.Orders;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * Contains the business logic for handling bills.
+ */
+public class BillBLL {
+    private BillDAO billDAO;
+
+    /**
+     * Initializes the BillDAO.
+     */
+    public BillBLL() {
+        billDAO = new BillDAO();
+    }
+
+    /**
+     * Inserts a bill into the database.
+     * @param bill the bill to insert
+     * @return the inserted bill
+     * @throws IllegalArgumentException if a bill with the same id already exists
+     */
+    public Bill insertBill(Bill bill) {
+        return billDAO.insert(bill);
+    }
+
+    /**
+     * Inserts several bills with JDBC batching, inside the current transaction if there is one.
+     * @param bills the bills to insert
+     * @return the inserted bills and the rejected rows
+     */
+    public BatchResult<Bill> insertBills(List<Bill> bills) {
+        return billDAO.insertAll(bills);
+    }
+
+    /**
+     * Finds the bill of an order.
+     * @param idOrder the ID of the order
+     * @return the bill of the order
+     * @throws NoSuchElementException if the order has no bill
+     */
+    public Bill findBillByOrder(int idOrder) {
+        Bill bill = billDAO.findByIdOrder(idOrder);
+        if (bill == null) {
+            throw new NoSuchElementException("The bill of the order with id= " + idOrder + " was not found!");
+        }
+        return bill;
+    }
+
+    /**
+     * Retrieves all bills from the bill table.
+     * @return a list of all bills
+     */
+    public List<Bill> findAllBills() {
+        return billDAO.findAll();
+    }
+
+    /**
+     * Retrieves one page of bills ordered by id.
+     * @param afterId the last id of the previous page, or 0 for the first page
+     * @param limit the maximum number of bills in the page
+     * @return the bills that follow afterId
+     */
+    public List<Bill> findBillsPage(int afterId, int limit) {
+        return billDAO.findPage(afterId, limit);
+    }
+
+    /**
+     * Streams all bills through a database cursor instead of loading the whole table.
+     * The stream holds a connection until it is closed.
+     * @return a lazy stream of bills that must be closed
+     */
+    public Stream<Bill> streamBills() {
+        return billDAO.stream();
+    }
+
+    /**
+     * Deletes a bill by its ID.
+     * @param id the ID of the bill to delete
+     */
+    public void deleteBill(int id) {
+        SalesAggregates sales = SalesAggregates.getInstance();
+        if (!sales.isEnabled()) {
+            billDAO.delete(id);
+            return;
+        }
+        UnitOfWork.run(() -> {
+            Bill bill = billDAO.findById(id);
+            billDAO.delete(id);
+            if (bill != null) {
+                try {
+                    sales.billRemoved(new OrdersBLL().findOrdersById(bill.idOrder()), bill.total());
+                } catch (NoSuchElementException e) {
+                    // a bill without an order was never counted
+                }
+            }
+        });
+    }
+
+    /**
+     * Retrieves all column names from the bill table.
+     * @return a list of column names
+     * @throws SQLException if a database access error occurs
+     */
+    public List<String> getColumns() throws SQLException {
+        return billDAO.getColumnNames(Bill.class);
+    }
+}
@@ -1,27 +1,36 @@
 package org.example.BusinessLogic;
 
 import org.example.BusinessLogic.Validators.EmailValidator;
-import org.example.BusinessLogic.Validators.Validator;
+import org.example.BusinessLogic.Validators.ValidatorChain;
+import org.example.Connection.UnitOfWork;
+import org.example.DataAccess.AbstractDAO;
+import org.example.DataAccess.BatchResult;
+import org.example.DataAccess.EntityCache;
 import org.example.DataAccess.ClientDAO;
 import org.example.Model.Client;
+import org.example.PrimitiveCollections.IntArrayList;
+import org.example.PrimitiveCollections.IntHashSet;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.stream.Stream;
 
 /**
  * Contains the business logic for handling clients.
  */
 public class ClientBLL {
-    private List<Validator<Client>> validators;
+    private ValidatorChain<Client> validators;
     private ClientDAO clientDAO;
 
     /**
      * Initializes the validators and the ClientDAO.
      */
     public ClientBLL() {
-        validators = new ArrayList<Validator<Client>>();
+        validators = new ValidatorChain<>();
         validators.add(new EmailValidator());
         clientDAO = new ClientDAO();
     }
@@ -46,12 +55,45 @@ public class ClientBLL {
      * @return the inserted client
      */
     public Client insertClient(Client client) {
-        for (Validator<Client> v : validators) {
-            v.validate(client);
-        }
+        validators.validate(client);
         return clientDAO.insert(client);
     }
 
+    /**
+     * Validates and inserts a list of clients in JDBC batches of the default size.
+     * @param clients the clients to insert
+     * @return the inserted clients and the rejected rows with their reason
+     */
+    public BatchResult<Client> insertClients(List<Client> clients) {
+        return insertClients(clients, AbstractDAO.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Validates a list of clients and inserts the valid ones in one transaction.
+     * Rows rejected by a validator or by the database are reported by their position in the list.
+     * @param clients the clients to insert
+     * @param batchSize the number of rows sent to the database in one batch
+     * @return the inserted clients and the rejected rows with their reason
+     * @throws IllegalArgumentException if batchSize is not positive
+     */
+    public BatchResult<Client> insertClients(List<Client> clients, int batchSize) {
+        BatchResult<Client> result = new BatchResult<>();
+        List<Client> valid = new ArrayList<>();
+        List<Integer> rows = new ArrayList<>();
+        Map<Integer, String> errors = validators.validateAll(clients);
+        for (int i = 0; i < clients.size(); i++) {
+            String error = errors.get(i);
+            if (error == null) {
+                valid.add(clients.get(i));
+                rows.add(i);
+            } else {
+                result.addFailure(i, error);
+            }
+        }
+        result.merge(clientDAO.insertAll(valid, batchSize), rows);
+        return result;
+    }
+
     /**
      * Updates a client's column with a new value. Validates the email if the column is email.
      * @param id the ID of the client to update
@@ -67,6 +109,30 @@ public class ClientBLL {
         return clientDAO.update(column, value, id);
     }
 
+    /**
+     * Updates several columns of a client with one statement. The new email is validated if it changes.
+     * @param id the ID of the client to update
+     * @param changes the new value of every changed column
+     * @return the updated client
+     */
+    public Client update(int id, Map<String, Object> changes) {
+        return update(id, changes, true);
+    }
+
+    /**
+     * Updates several columns of a client with one statement. The new email is validated if it changes.
+     * @param id the ID of the client to update
+     * @param changes the new value of every changed column
+     * @param reload whether to read the updated client back
+     * @return the updated client, or null if reload is false
+     */
+    public Client update(int id, Map<String, Object> changes, boolean reload) {
+        if (changes.containsKey("email") && !EmailValidator.isValid(String.valueOf(changes.get("email")))) {
+            throw new IllegalArgumentException("Email is not a valid email!");
+        }
+        return clientDAO.update(id, changes, reload);
+    }
+
     /**
      * Deletes a client by its ID.
      * @param id the ID of the client to delete
@@ -75,6 +141,21 @@ public class ClientBLL {
         clientDAO.delete(id);
     }
 
+    /**
+     * Deletes a client with all of its orders and their bills in one transaction, using one
+     * set-based DELETE per table instead of one statement per order.
+     * @param id the ID of the client to delete
+     * @return the number of deleted orders
+     * @throws IllegalStateException if one of the statements failed and nothing was deleted
+     */
+    public int deleteClientCascade(int id) {
+        return UnitOfWork.execute(() -> {
+            int orders = new OrdersBLL().deleteOrdersOfClient(id);
+            clientDAO.delete(id);
+            return orders;
+        });
+    }
+
     /**
      * Retrieves all clients from the client table.
      * @return a list of all clients
@@ -87,10 +168,18 @@ public class ClientBLL {
      * Retrieves all client IDs.
      * @return a list of client IDs
      */
-    public List<Integer> getClientsId() {
+    public IntArrayList getClientsId() {
         return clientDAO.getIds(Client.class);
     }
 
+    /**
+     * Retrieves the IDs of all clients as a hash set, for repeated membership checks.
+     * @return the set of client IDs
+     */
+    public IntHashSet getClientIdSet() {
+        return clientDAO.getIdSet();
+    }
+
     /**
      * Retrieves all column names from the client table.
      * @return a list of column names
@@ -99,4 +188,53 @@ public class ClientBLL {
     public List<String> getColumns() throws SQLException {
         return clientDAO.getColumnNames(Client.class);
     }
+
+    /**
+     * Finds several clients with one or a few queries instead of one query per id.
+     * @param ids the IDs of the clients to find
+     * @return the found clients keyed by ID; missing IDs are absent from the map
+     * @throws IllegalStateException if the clients could not be read
+     */
+    public Map<Integer, Client> findClientsByIds(Collection<Integer> ids) {
+        Map<Integer, Client> found = clientDAO.findByIds(ids);
+        if (found == null) {
+            throw new IllegalStateException("The clients could not be read!");
+        }
+        return found;
+    }
+
+    /**
+     * Retrieves one page of clients ordered by id.
+     * @param afterId the last id of the previous page, or 0 for the first page
+     * @param limit the maximum number of clients in the page
+     * @return the clients that follow afterId
+     */
+    public List<Client> findClientsPage(int afterId, int limit) {
+        return clientDAO.findPage(afterId, limit);
+    }
+
+    /**
+     * Streams all clients through a database cursor instead of loading the whole table.
+     * The stream holds a connection until it is closed.
+     * @return a lazy stream of clients that must be closed
+     */
+    public Stream<Client> streamClients() {
+        return clientDAO.stream();
+    }
+
+    /**
+     * Caches clients read by id, so repeated lookups of the same client do not query the database.
+     * @param maxSize the maximum number of cached clients
+     * @param ttlMillis how long a client stays cached after it was read
+     */
+    public void enableCache(int maxSize, long ttlMillis) {
+        clientDAO.enableCache(maxSize, ttlMillis);
+    }
+
+    /**
+     * @return the client cache with its hit, miss and eviction counters, or null if it is disabled
+     */
+    public EntityCache<Client> getCache() {
+        return clientDAO.getCache();
+    }
 }
@@ -0,0 +1,617 @@
+package org.example.BusinessLogic;
+
+import org.example.Connection.UnitOfWork;
+import org.example.DataAccess.ProductDAO;
+import org.example.Model.Product;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * In-process inventory of product stock.
+ * The available quantity of every product is kept in memory in a table keyed by the primitive product id,
+ * and reservations are compare-and-set operations on the counter of that product only, so orders for
+ * different products never contend with each other. Every reservation and release is also inserted into the
+ * ProductStockLedger table by {@link ProductBLL}, in the transaction of its order, so it is committed or
+ * rolled back together with the order without locking the Product row. A background task folds the ledger
+ * into Product.quantityPro in batches. When the inventory starts, the stock of every product is its
+ * quantityPro minus the ledger rows not folded in yet, so reservations committed just before a crash are kept.
+ * Products that receive most of the orders can be switched to hot mode, which splits their counter into
+ * sub-counters, see {@link #enableHotMode(int, int)}.
+ */
+public final class InventoryService {
+    private static final Logger LOGGER = Logger.getLogger(InventoryService.class.getName());
+
+    private static final long FLUSH_INTERVAL_MILLIS = 200;
+    private static final int FLUSH_BATCH_SIZE = 5_000;
+    private static final long REBALANCE_INTERVAL_MILLIS = 1_000;
+
+    private static final InventoryService INSTANCE = new InventoryService();
+
+    private final ProductDAO productDAO = new ProductDAO();
+    private volatile StockTable table = new StockTable(16);
+    private volatile boolean enabled;
+    private ScheduledExecutorService flusher;
+
+    private InventoryService() {
+    }
+
+    /**
+     * @return the inventory shared by the application
+     */
+    public static InventoryService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Loads the stock of every product from the database and starts writing reservations through.
+     * Until this is called the inventory is disabled and stock is reserved directly in the database.
+     */
+    public synchronized void start() {
+        if (enabled) {
+            return;
+        }
+        productDAO.createHotProductTable();
+        productDAO.createStockLedgerTable();
+        Map<Integer, Integer> hot = productDAO.findHotProducts();
+        Map<Integer, Integer> pending = productDAO.findPendingStockChanges();
+        StockTable loaded = new StockTable(16);
+        try (Stream<Product> products = productDAO.stream()) {
+            for (Product product : (Iterable<Product>) products::iterator) {
+                int quantity = product.getQuantityPro() - pending.getOrDefault(product.getId(), 0);
+                StockCounter counter;
+                Integer shards = hot.get(product.getId());
+                if (shards == null) {
+                    counter = new SingleCounter(quantity);
+                } else {
+                    counter = new ShardedCounter(shards);
+                    counter.set(quantity);
+                }
+                loaded = loaded.insert(product.getId(), counter);
+            }
+        }
+        table = loaded;
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::rebalance, REBALANCE_INTERVAL_MILLIS, REBALANCE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "inventory-final-flush"));
+        enabled = true;
+        LOGGER.log(Level.INFO, "Inventory loaded with " + loaded.size + " products");
+    }
+
+    /**
+     * Folds the ledger into the Product table and stops the background writer.
+     */
+    public synchronized void stop() {
+        if (!enabled) {
+            return;
+        }
+        enabled = false;
+        flusher.shutdown();
+        flush();
+    }
+
+    /**
+     * @return true once the inventory has been started
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Splits the stock of a product into several sub-counters that orders decrement independently,
+     * for products that receive most of the orders, for example during a sale. Every thread reserves
+     * from its own sub-counter and only looks at the others when its own one runs short. The product and
+     * its number of sub-counters are kept in the ProductHotMode table so the product stays hot after a restart.
+     * @param productId the ID of the product
+     * @param shards the number of sub-counters, rounded up to a power of two
+     * @throws NoSuchElementException if the product does not exist
+     */
+    public synchronized void enableHotMode(int productId, int shards) {
+        if (counter(productId) instanceof ShardedCounter) {
+            return;
+        }
+        ShardedCounter counter = new ShardedCounter(shards);
+        replace(productId, counter);
+        productDAO.saveHotProduct(productId, counter.shards());
+    }
+
+    /**
+     * Splits the stock of a product into one sub-counter per available processor.
+     * @param productId the ID of the product
+     * @see #enableHotMode(int, int)
+     */
+    public void enableHotMode(int productId) {
+        enableHotMode(productId, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Merges the sub-counters of a hot product back into one counter.
+     * @param productId the ID of the product
+     */
+    public synchronized void disableHotMode(int productId) {
+        if (!(counter(productId) instanceof ShardedCounter)) {
+            return;
+        }
+        replace(productId, new SingleCounter(0));
+        productDAO.deleteHotProduct(productId);
+    }
+
+    /**
+     * @param productId the ID of the product
+     * @return true if the stock of the product is split into sub-counters
+     */
+    public boolean isHot(int productId) {
+        return table.get(productId) instanceof ShardedCounter;
+    }
+
+    /**
+     * Forgets a deleted product: drops its stock from memory and deletes its ProductHotMode row and its
+     * ledger rows that are not folded yet. Does nothing if the inventory is disabled.
+     * @param productId the ID of the product
+     */
+    public synchronized void remove(int productId) {
+        if (!enabled) {
+            return;
+        }
+        forget(productId);
+        productDAO.deleteHotProduct(productId);
+        productDAO.deleteStockChanges(productId);
+    }
+
+    /**
+     * Drops the stock of a product from memory, for example after it is inserted, so that the next operation
+     * loads it from the database instead of using a counter left from an earlier product with the same id.
+     * @param productId the ID of the product
+     */
+    public synchronized void forget(int productId) {
+        StockCounter counter = table.get(productId);
+        if (counter != null) {
+            counter.retired = true;
+            table = table.without(productId);
+        }
+    }
+
+    /**
+     * Takes a quantity out of the stock of a product if enough of it is available.
+     * @param productId the ID of the product
+     * @param quantity the quantity to reserve
+     * @return true if the quantity was reserved, false if there is not enough stock
+     * @throws NoSuchElementException if the product does not exist
+     */
+    public boolean reserve(int productId, int quantity) {
+        while (true) {
+            StockCounter counter = counter(productId);
+            boolean reserved = counter.tryReserve(quantity);
+            if (!counter.retired) {
+                return reserved;
+            }
+            forward(productId, counter);
+            if (reserved) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Gives back a quantity taken with reserve.
+     * @param productId the ID of the product
+     * @param quantity the quantity to give back
+     */
+    public void release(int productId, int quantity) {
+        StockCounter counter = counter(productId);
+        counter.release(quantity);
+        if (counter.retired) {
+            forward(productId, counter);
+        }
+    }
+
+    /**
+     * @param productId the ID of the product
+     * @return the quantity of the product that can still be reserved
+     * @throws NoSuchElementException if the product does not exist
+     */
+    public int available(int productId) {
+        return counter(productId).available();
+    }
+
+    /**
+     * Sets the quantity of a product that can be reserved, for example when the product is edited.
+     * The caller writes the returned difference to the database as a relative change, so that it does not
+     * matter whether the ledger rows of earlier reservations are folded in before or after it.
+     * @param productId the ID of the product
+     * @param quantity the new available quantity
+     * @return the new quantity minus the quantity that was available before
+     * @throws NoSuchElementException if the product does not exist
+     */
+    public synchronized int set(int productId, int quantity) {
+        StockCounter counter = counter(productId);
+        return quantity - counter.replaceAvailable(quantity);
+    }
+
+    /**
+     * Folds the rows of the ProductStockLedger table into the Product table, a batch at a time, each batch in
+     * one transaction: the changes of every product are summed and subtracted with one statement, and the
+     * folded rows are deleted. Rows that could not be folded stay in the ledger for the next flush.
+     */
+    public synchronized void flush() {
+        int folded;
+        do {
+            try {
+                folded = UnitOfWork.execute(() -> productDAO.foldStockLedger(FLUSH_BATCH_SIZE));
+            } catch (RuntimeException e) {
+                folded = -1;
+            }
+            if (folded < 0) {
+                LOGGER.log(Level.WARNING, "InventoryService:flush could not fold the stock ledger, retrying later");
+                return;
+            }
+        } while (folded == FLUSH_BATCH_SIZE);
+    }
+
+    /**
+     * Evens out the sub-counters of every hot product, so that threads whose sub-counter ran dry find
+     * stock in it again. Only memory changes; the stock of the product in the database is not affected.
+     */
+    public void rebalance() {
+        StockTable current = table;
+        for (int i = 0; i < current.keys.length; i++) {
+            if (current.counters[i] instanceof ShardedCounter sharded && !sharded.retired) {
+                sharded.rebalance();
+            }
+        }
+    }
+
+    /**
+     * Finds the counter of a product, loading products created after the inventory started.
+     */
+    private StockCounter counter(int productId) {
+        StockCounter counter = table.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        Product product = productDAO.findById(productId);
+        if (product == null) {
+            throw new NoSuchElementException("The product with id= " + productId + " was not found!");
+        }
+        return register(productId, new SingleCounter(product.getQuantityPro()));
+    }
+
+    private synchronized StockCounter register(int productId, StockCounter counter) {
+        StockCounter existing = table.get(productId);
+        if (existing != null) {
+            return existing;
+        }
+        table = table.with(productId, counter);
+        return counter;
+    }
+
+    /**
+     * Moves the stock of a product to a new counter. The old counter is retired first, so operations that
+     * still reach it hand what they left there over to the new counter.
+     */
+    private synchronized void replace(int productId, StockCounter next) {
+        StockCounter previous = counter(productId);
+        previous.retired = true;
+        next.addAvailable(previous.drainAvailable());
+        table = table.with(productId, next);
+    }
+
+    /**
+     * Hands over what operations left in a retired counter to the counter that replaced it.
+     */
+    private synchronized void forward(int productId, StockCounter retired) {
+        StockCounter current = table.get(productId);
+        if (current == retired || current == null) {
+            return;
+        }
+        current.addAvailable(retired.drainAvailable());
+    }
+
+    /**
+     * The quantity of one product that can still be reserved.
+     * A counter is retired when the product switches between one counter and sub-counters.
+     */
+    private abstract static class StockCounter {
+        volatile boolean retired;
+
+        abstract boolean tryReserve(int quantity);
+
+        abstract void release(int quantity);
+
+        abstract int available();
+
+        /**
+         * Sets the available quantity.
+         */
+        void set(int quantity) {
+            replaceAvailable(quantity);
+        }
+
+        /**
+         * Sets the available quantity and returns the one it replaces.
+         */
+        abstract int replaceAvailable(int quantity);
+
+        abstract void addAvailable(int quantity);
+
+        abstract int drainAvailable();
+    }
+
+    /**
+     * The stock of an ordinary product in one atomic counter.
+     */
+    private static final class SingleCounter extends StockCounter {
+        private final AtomicInteger available;
+
+        private SingleCounter(int available) {
+            this.available = new AtomicInteger(available);
+        }
+
+        @Override
+        boolean tryReserve(int quantity) {
+            int current;
+            do {
+                current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - quantity));
+            return true;
+        }
+
+        @Override
+        void release(int quantity) {
+            available.addAndGet(quantity);
+        }
+
+        @Override
+        int available() {
+            return available.get();
+        }
+
+        @Override
+        int replaceAvailable(int quantity) {
+            return available.getAndSet(quantity);
+        }
+
+        @Override
+        void addAvailable(int quantity) {
+            available.addAndGet(quantity);
+        }
+
+        @Override
+        int drainAvailable() {
+            return available.getAndSet(0);
+        }
+    }
+
+    /**
+     * The stock of a hot product split into sub-counters. Every sub-counter holds its available quantity
+     * in its own 64-byte slot of one array, so threads working on different sub-counters do not invalidate
+     * each other's cache lines.
+     */
+    private static final class ShardedCounter extends StockCounter {
+        private static final int STRIDE = 16;
+
+        private final AtomicIntegerArray cells;
+        private final int mask;
+
+        private ShardedCounter(int shards) {
+            int size = shards <= 1 ? 1 : Integer.highestOneBit(shards - 1) << 1;
+            cells = new AtomicIntegerArray(size * STRIDE);
+            mask = size - 1;
+        }
+
+        @Override
+        boolean tryReserve(int quantity) {
+            int home = home();
+            for (int i = 0; i <= mask; i++) {
+                if (take((home + i) & mask, quantity)) {
+                    return true;
+                }
+            }
+            return reserveAcross(home, quantity);
+        }
+
+        private int home() {
+            return (int) Thread.currentThread().threadId() & mask;
+        }
+
+        private boolean take(int shard, int quantity) {
+            int slot = shard * STRIDE;
+            int current;
+            do {
+                current = cells.get(slot);
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!cells.compareAndSet(slot, current, current - quantity));
+            return true;
+        }
+
+        /**
+         * Collects a quantity that no single sub-counter holds from several of them, or gives back what
+         * was collected if all of them together hold less.
+         */
+        private synchronized boolean reserveAcross(int home, int quantity) {
+            int taken = 0;
+            for (int i = 0; i <= mask && taken < quantity; i++) {
+                int slot = ((home + i) & mask) * STRIDE;
+                int current;
+                int part;
+                do {
+                    current = cells.get(slot);
+                    part = Math.min(current, quantity - taken);
+                } while (part > 0 && !cells.compareAndSet(slot, current, current - part));
+                if (part > 0) {
+                    taken += part;
+                }
+            }
+            if (taken < quantity) {
+                cells.getAndAdd(home * STRIDE, taken);
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        void release(int quantity) {
+            cells.getAndAdd(home() * STRIDE, quantity);
+        }
+
+        @Override
+        int available() {
+            int total = 0;
+            for (int shard = 0; shard <= mask; shard++) {
+                total += cells.get(shard * STRIDE);
+            }
+            return total;
+        }
+
+        @Override
+        synchronized int replaceAvailable(int quantity) {
+            int previous = drainAvailable();
+            spread(quantity);
+            return previous;
+        }
+
+        /**
+         * Splits the available quantity evenly again. Reservations that find their sub-counter empty
+         * meanwhile wait for this in reserveAcross instead of failing.
+         */
+        synchronized void rebalance() {
+            spread(drainAvailable());
+        }
+
+        private void spread(int total) {
+            int shards = mask + 1;
+            int share = Math.floorDiv(total, shards);
+            int remainder = total - share * shards;
+            for (int shard = 0; shard <= mask; shard++) {
+                int quantity = share + (shard < remainder ? 1 : 0);
+                cells.getAndAdd(shard * STRIDE, quantity);
+            }
+        }
+
+        int shards() {
+            return mask + 1;
+        }
+
+        @Override
+        void addAvailable(int quantity) {
+            cells.getAndAdd(home() * STRIDE, quantity);
+        }
+
+        @Override
+        synchronized int drainAvailable() {
+            int total = 0;
+            for (int shard = 0; shard <= mask; shard++) {
+                total += cells.getAndSet(shard * STRIDE, 0);
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Open-addressing table from product id to counter. It is never modified once published:
+     * adding or removing a product copies it, which is rare compared to lookups.
+     */
+    private static final class StockTable {
+        private final int[] keys;
+        private final StockCounter[] counters;
+        private final int mask;
+        private int size;
+
+        private StockTable(int capacity) {
+            keys = new int[capacity];
+            counters = new StockCounter[capacity];
+            mask = capacity - 1;
+        }
+
+        private StockCounter get(int key) {
+            int i = mix(key) & mask;
+            StockCounter counter;
+            while ((counter = counters[i]) != null) {
+                if (keys[i] == key) {
+                    return counter;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * @return a copy of this table that also maps key to counter, grown when it is half full
+         */
+        private StockTable with(int key, StockCounter counter) {
+            int capacity = keys.length;
+            while ((size + 1) * 2 > capacity) {
+                capacity *= 2;
+            }
+            StockTable copy = new StockTable(capacity);
+            for (int i = 0; i < keys.length; i++) {
+                if (counters[i] != null) {
+                    copy.put(keys[i], counters[i]);
+                }
+            }
+            copy.put(key, counter);
+            return copy;
+        }
+
+        /**
+         * @return a copy of this table without the mapping of key
+         */
+        private StockTable without(int key) {
+            StockTable copy = new StockTable(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                if (counters[i] != null && keys[i] != key) {
+                    copy.put(keys[i], counters[i]);
+                }
+            }
+            return copy;
+        }
+
+        /**
+         * Adds a mapping in place while the table is not published yet, growing it when it is half full.
+         * @return this table or its grown copy
+         */
+        private StockTable insert(int key, StockCounter counter) {
+            if ((size + 1) * 2 > keys.length) {
+                return with(key, counter);
+            }
+            put(key, counter);
+            return this;
+        }
+
+        private void put(int key, StockCounter counter) {
+            int i = mix(key) & mask;
+            while (counters[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (counters[i] == null) {
+                size++;
+            }
+            keys[i] = key;
+            counters[i] = counter;
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.BusinessLogic;
+
+import org.example.DataAccess.BatchResult;
+import org.example.Model.Orders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous order intake with group commit.
+ * Submitted orders wait in a bounded queue; one worker thread drains them in micro-batches and writes
+ * every batch with {@link OrdersBLL#insertOrdersBatch(List)}, so the cost of a commit is shared by all
+ * the orders of the batch. Every submitter gets its own result through a CompletableFuture.
+ */
+public final class OrderPipeline {
+    private static final Logger LOGGER = Logger.getLogger(OrderPipeline.class.getName());
+
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long SUBMIT_TIMEOUT_MILLIS = 1_000;
+
+    private static final OrderPipeline INSTANCE = new OrderPipeline();
+
+    private final BlockingQueue<Submission> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final OrdersBLL ordersBLL = new OrdersBLL();
+    private Thread worker;
+
+    private OrderPipeline() {
+    }
+
+    /**
+     * @return the pipeline shared by the application
+     */
+    public static OrderPipeline getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues an order. When the queue is full the caller waits up to one second for room.
+     * @param order the order to place
+     * @return a future completed with the inserted order, or exceptionally with the reason it was rejected
+     */
+    public CompletableFuture<Orders> submit(Orders order) {
+        Submission submission = new Submission(order);
+        startWorker();
+        try {
+            if (!queue.offer(submission, SUBMIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                submission.future.completeExceptionally(new RejectedExecutionException("The order queue is full!"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            submission.future.completeExceptionally(e);
+        }
+        return submission.future;
+    }
+
+    /**
+     * @return the number of orders waiting to be written
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    private synchronized void startWorker() {
+        if (worker == null) {
+            worker = new Thread(this::drain, "order-pipeline");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private void drain() {
+        List<Submission> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+            process(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes one micro-batch and completes the future of each of its orders.
+     */
+    private void process(List<Submission> batch) {
+        List<Orders> orders = new ArrayList<>(batch.size());
+        for (Submission submission : batch) {
+            orders.add(submission.order);
+        }
+        try {
+            BatchResult<Orders> result = ordersBLL.insertOrdersBatch(orders);
+            for (int i = 0; i < batch.size(); i++) {
+                String failure = result.getFailures().get(i);
+                if (failure == null) {
+                    batch.get(i).future.complete(orders.get(i));
+                } else {
+                    batch.get(i).future.completeExceptionally(new IllegalArgumentException(failure));
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "OrderPipeline:process " + e.getMessage());
+            for (Submission submission : batch) {
+                submission.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class Submission {
+        private final Orders order;
+        private final CompletableFuture<Orders> future = new CompletableFuture<>();
+
+        private Submission(Orders order) {
+            this.order = order;
+        }
+    }
+}
@@ -1,13 +1,24 @@
 package org.example.BusinessLogic;
 
+import org.example.BusinessLogic.Validators.ReferenceIds;
+import org.example.BusinessLogic.Validators.Rules;
 import org.example.BusinessLogic.Validators.Validator;
+import org.example.BusinessLogic.Validators.ValidatorChain;
+import org.example.Connection.UnitOfWork;
+import org.example.DataAccess.BatchResult;
 import org.example.DataAccess.OrdersDAO;
+import org.example.DataAccess.SalesTotals;
 import org.example.Model.Orders;
 import org.example.Model.Bill;
 import org.example.Model.Product;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
@@ -15,14 +26,23 @@ import java.util.ArrayList;
  * Contains the business logic for handling orders.
  */
 public class OrdersBLL {
-    private List<Validator<Orders>> validators;
+    private static final ReferenceIds CLIENT_IDS = new ReferenceIds("Client", () -> new ClientBLL().getClientIdSet());
+    private static final ReferenceIds PRODUCT_IDS = new ReferenceIds("Product", () -> new ProductBLL().getProductIdSet());
+    private static final Validator<Orders> RULES = new Rules<Orders>()
+            .range("quantity", Orders::getQuantityOrd, 1, Integer.MAX_VALUE)
+            .exists("client", Orders::getClient, CLIENT_IDS)
+            .exists("product", Orders::getProduct, PRODUCT_IDS)
+            .compile();
+
+    private ValidatorChain<Orders> validators;
     private OrdersDAO ordersDAO;
 
     /**
      * Initializes the validators and the OrdersDAO.
      */
     public OrdersBLL() {
-        validators = new ArrayList<Validator<Orders>>();
+        validators = new ValidatorChain<>();
+        validators.add(RULES);
         ordersDAO = new OrdersDAO();
     }
 
@@ -41,27 +61,145 @@ public class OrdersBLL {
     }
 
     /**
-     * Inserts a new order into the database. Validates the order and checks product quantity.
+     * Inserts a new order into the database. Validates the order, reserves the product quantity
+     * with one conditional update and writes the order and its bill. The stock change, the order
+     * and the bill are committed together in one {@link UnitOfWork}, or not at all.
      * @param order the order to insert
      * @return the inserted order
      * @throws IllegalArgumentException if the product quantity is not sufficient
+     * @throws NoSuchElementException if the product does not exist
      */
     public Orders insertOrders(Orders order) {
-        for (Validator<Orders> v : validators) {
-            v.validate(order);
+        validators.validate(order);
+
+        return UnitOfWork.execute(() -> {
+            ProductBLL productBLL = new ProductBLL();
+            if (!productBLL.reserveStock(order.getProduct(), order.getQuantityOrd())) {
+                productBLL.findProductById(order.getProduct());
+                throw new IllegalArgumentException("The quantity of the product is not enough!");
+            }
+            Orders o = ordersDAO.insert(order);
+            Bill bill = calculateBill(o);
+            new BillBLL().insertBill(bill);
+            SalesAggregates.getInstance().orderPlaced(o, bill.total());
+            return o;
+        });
+    }
+
+    /**
+     * Inserts many orders in one transaction: the stock reservations, the orders and the bills are each
+     * written with one JDBC batch and committed once. Every order succeeds or fails on its own; the
+     * stock of an order that could not be written is given back before the commit.
+     * @param orders the orders to insert
+     * @return the inserted orders and, for every rejected order, its position in the list and the reason
+     */
+    public BatchResult<Orders> insertOrdersBatch(List<Orders> orders) {
+        BatchResult<Orders> result = new BatchResult<>();
+        List<Orders> valid = new ArrayList<>();
+        List<Integer> rows = new ArrayList<>();
+        List<Integer> productIds = new ArrayList<>();
+        Map<Integer, String> errors = validators.validateAll(orders);
+        for (int i = 0; i < orders.size(); i++) {
+            Orders order = orders.get(i);
+            String error = errors.get(i);
+            if (error == null) {
+                valid.add(order);
+                rows.add(i);
+                productIds.add(order.getProduct());
+            } else {
+                result.addFailure(i, error);
+            }
         }
+        if (valid.isEmpty()) {
+            return result;
+        }
+        try {
+            Map<Integer, Product> products = new ProductBLL().findProductsByIds(productIds);
+            result.merge(UnitOfWork.execute(() -> placeOrders(valid, products)), rows);
+        } catch (RuntimeException e) {
+            for (int row : rows) {
+                result.addFailure(row, e.getMessage());
+            }
+        }
+        return result;
+    }
 
-        Product prod = new ProductBLL().findProductById(order.getProduct());
-        if (prod.getQuantityPro() < order.getQuantityOrd()) {
-            throw new IllegalArgumentException("The quantity of the product is not enough!");
-        } else {
-            prod.setQuantityPro(prod.getQuantityPro() - order.getQuantityOrd());
-            new ProductBLL().update(prod.getId(), "quantityPro", prod.getQuantityPro());
+    /**
+     * Reserves the stock, writes the orders and writes the bills of a batch inside the current transaction.
+     * Stock is only reserved for orders whose product was found, and an order whose bill is rejected is
+     * deleted again and its stock given back, so it fails on its own.
+     */
+    private BatchResult<Orders> placeOrders(List<Orders> orders, Map<Integer, Product> products) {
+        BatchResult<Orders> result = new BatchResult<>();
+        ProductBLL productBLL = new ProductBLL();
+        List<Integer> known = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            int productId = orders.get(i).getProduct();
+            if (products.containsKey(productId)) {
+                known.add(i);
+            } else {
+                result.addFailure(i, "The product with id= " + productId + " was not found!");
+            }
+        }
+        int[] ids = new int[known.size()];
+        int[] quantities = new int[known.size()];
+        for (int i = 0; i < known.size(); i++) {
+            ids[i] = orders.get(known.get(i)).getProduct();
+            quantities[i] = orders.get(known.get(i)).getQuantityOrd();
+        }
+        boolean[] reserved = productBLL.reserveStock(ids, quantities);
+        List<Orders> toInsert = new ArrayList<>();
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < known.size(); i++) {
+            int row = known.get(i);
+            if (reserved[i]) {
+                toInsert.add(orders.get(row));
+                rows.add(row);
+            } else {
+                result.addFailure(row, "The quantity of the product is not enough!");
+            }
+        }
+        BatchResult<Orders> inserted = ordersDAO.insertAll(toInsert);
+        List<Orders> written = new ArrayList<>();
+        List<Integer> writtenRows = new ArrayList<>();
+        List<Bill> bills = new ArrayList<>();
+        for (int i = 0; i < toInsert.size(); i++) {
+            Orders order = toInsert.get(i);
+            String failure = inserted.getFailures().get(i);
+            if (failure != null) {
+                productBLL.releaseStock(order.getProduct(), order.getQuantityOrd());
+                result.addFailure(rows.get(i), failure);
+            } else {
+                written.add(order);
+                writtenRows.add(rows.get(i));
+                bills.add(calculateBill(order, products.get(order.getProduct())));
+            }
         }
-        Orders o = ordersDAO.insert(order);
-        Bill b = calculateBill(o);
-        b.insertBill(b);
-        return o;
+        Map<Integer, String> billFailures = new BillBLL().insertBills(bills).getFailures();
+        SalesAggregates sales = SalesAggregates.getInstance();
+        for (int i = 0; i < written.size(); i++) {
+            Orders order = written.get(i);
+            String failure = billFailures.get(i);
+            if (failure == null) {
+                result.addInserted(order);
+                sales.orderPlaced(order, bills.get(i).total());
+            } else {
+                ordersDAO.delete(order.getId());
+                productBLL.releaseStock(order.getProduct(), order.getQuantityOrd());
+                result.addFailure(writtenRows.get(i), failure);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Places an order asynchronously. The order waits in a bounded queue and is written together with
+     * other pending orders in one transaction, see {@link OrderPipeline}.
+     * @param order the order to place
+     * @return a future completed with the inserted order, or exceptionally with the reason it was rejected
+     */
+    public CompletableFuture<Orders> submitOrder(Orders order) {
+        return OrderPipeline.getInstance().submit(order);
     }
 
     /**
@@ -72,7 +210,79 @@ public class OrdersBLL {
      * @return the updated order
      */
     public Orders update(int id, String column, Object value) {
-        return ordersDAO.update(column, value, id);
+        if (!changesSales(Collections.singleton(column))) {
+            return ordersDAO.update(column, value, id);
+        }
+        return UnitOfWork.execute(() -> {
+            Orders before = ordersDAO.findById(id);
+            Orders after = ordersDAO.update(column, value, id);
+            salesChanged(before, after);
+            return after;
+        });
+    }
+
+    /**
+     * Updates several columns of an order with one statement.
+     * @param id the ID of the order to update
+     * @param changes the new value of every changed column
+     * @return the updated order
+     */
+    public Orders update(int id, Map<String, Object> changes) {
+        return ordersDAO.update(id, changes, true);
+    }
+
+    /**
+     * Updates several columns of an order with one statement.
+     * @param id the ID of the order to update
+     * @param changes the new value of every changed column
+     * @param reload whether to read the updated order back
+     * @return the updated order, or null if reload is false
+     */
+    public Orders update(int id, Map<String, Object> changes, boolean reload) {
+        if (!changesSales(changes.keySet())) {
+            return ordersDAO.update(id, changes, reload);
+        }
+        return UnitOfWork.execute(() -> {
+            Orders before = ordersDAO.findById(id);
+            Orders after = ordersDAO.update(id, changes, true);
+            salesChanged(before, after);
+            return reload ? after : null;
+        });
+    }
+
+    /**
+     * @return true if the sales totals are followed and one of the columns moves an order between totals
+     */
+    private static boolean changesSales(Collection<String> columns) {
+        if (!SalesAggregates.getInstance().isEnabled()) {
+            return false;
+        }
+        for (String column : columns) {
+            if (column.equalsIgnoreCase("client") || column.equalsIgnoreCase("product")
+                    || column.equalsIgnoreCase("quantityOrd")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void salesChanged(Orders before, Orders after) {
+        if (before == null || after == null) {
+            return;
+        }
+        boolean moved = before.getClient() != after.getClient() || before.getProduct() != after.getProduct();
+        SalesAggregates.getInstance().orderChanged(before, after, moved ? revenueOf(after.getId()) : 0);
+    }
+
+    /**
+     * @return the total of the bill of an order, or 0 if it has none
+     */
+    private static long revenueOf(int orderId) {
+        try {
+            return new BillBLL().findBillByOrder(orderId).total();
+        } catch (NoSuchElementException e) {
+            return 0;
+        }
     }
 
     /**
@@ -80,7 +290,60 @@ public class OrdersBLL {
      * @param id the ID of the order to delete
      */
     public void deleteOrders(int id) {
-        ordersDAO.delete(id);
+        if (!SalesAggregates.getInstance().isEnabled()) {
+            ordersDAO.delete(id);
+            return;
+        }
+        UnitOfWork.run(() -> {
+            Orders order = ordersDAO.findById(id);
+            long revenue = revenueOf(id);
+            ordersDAO.delete(id);
+            if (order != null) {
+                SalesAggregates.getInstance().orderRemoved(order, revenue);
+            }
+        });
+    }
+
+    /**
+     * Deletes an order together with its bill in one transaction.
+     * @param id the ID of the order to delete
+     * @throws IllegalStateException if one of the statements failed and nothing was deleted
+     */
+    public void deleteOrdersCascade(int id) {
+        UnitOfWork.run(() -> {
+            SalesAggregates sales = SalesAggregates.getInstance();
+            Orders order = sales.isEnabled() ? ordersDAO.findById(id) : null;
+            long revenue = order != null ? revenueOf(id) : 0;
+            ordersDAO.deleteBillsOfOrder(id);
+            ordersDAO.delete(id);
+            if (order != null) {
+                sales.orderRemoved(order, revenue);
+            }
+        });
+    }
+
+    /**
+     * Deletes every order of a client and their bills with two set-based statements,
+     * inside the current transaction or in one of their own. When the sales totals are followed, the orders
+     * are summed with a locking read first, so the subtracted totals match the deleted rows.
+     * @param clientId the ID of the client
+     * @return the number of deleted orders
+     * @throws IllegalStateException if one of the statements failed and nothing was deleted
+     */
+    public int deleteOrdersOfClient(int clientId) {
+        return UnitOfWork.execute(() -> {
+            SalesAggregates sales = SalesAggregates.getInstance();
+            if (sales.isEnabled()) {
+                List<SalesTotals> totals = ordersDAO.findSalesOfClientByProduct(clientId);
+                if (totals == null) {
+                    UnitOfWork.setRollbackOnly();
+                    return 0;
+                }
+                sales.clientOrdersRemoved(clientId, totals);
+            }
+            ordersDAO.deleteBillsOfClient(clientId);
+            return ordersDAO.deleteByClient(clientId);
+        });
     }
 
     /**
@@ -89,11 +352,13 @@ public class OrdersBLL {
      * @return the calculated bill
      */
     public Bill calculateBill(Orders order) {
-        int bill = 0;
         Product prod = new ProductBLL().findProductById(order.getProduct());
-        bill = order.getQuantityOrd() * prod.getPrice();
-        Bill result = new Bill(order.getId(), order.getId(), bill);
-        return result;
+        return calculateBill(order, prod);
+    }
+
+    private Bill calculateBill(Orders order, Product prod) {
+        int bill = order.getQuantityOrd() * prod.getPrice();
+        return new Bill(order.getId(), order.getId(), bill);
     }
 
     /**
@@ -112,4 +377,55 @@ public class OrdersBLL {
     public List<Orders> findAllOrders() {
         return ordersDAO.findAll();
     }
+
+    /**
+     * Finds several orders with one or a few queries instead of one query per id.
+     * @param ids the IDs of the orders to find
+     * @return the found orders keyed by ID; missing IDs are absent from the map
+     * @throws IllegalStateException if the orders could not be read
+     */
+    public Map<Integer, Orders> findOrdersByIds(Collection<Integer> ids) {
+        Map<Integer, Orders> found = ordersDAO.findByIds(ids);
+        if (found == null) {
+            throw new IllegalStateException("The orders could not be read!");
+        }
+        return found;
+    }
+
+    /**
+     * Finds the orders of a client through the index on Orders.client.
+     * @param clientId the ID of the client
+     * @return the orders of the client
+     */
+    public List<Orders> findOrdersByClient(int clientId) {
+        return ordersDAO.findBy("client", clientId);
+    }
+
+    /**
+     * Finds the orders of a product through the index on Orders.product.
+     * @param productId the ID of the product
+     * @return the orders of the product
+     */
+    public List<Orders> findOrdersByProduct(int productId) {
+        return ordersDAO.findBy("product", productId);
+    }
+
+    /**
+     * Retrieves one page of orders ordered by id.
+     * @param afterId the last id of the previous page, or 0 for the first page
+     * @param limit the maximum number of orders in the page
+     * @return the orders that follow afterId
+     */
+    public List<Orders> findOrdersPage(int afterId, int limit) {
+        return ordersDAO.findPage(afterId, limit);
+    }
+
+    /**
+     * Streams all orders through a database cursor instead of loading the whole table.
+     * The stream holds a connection until it is closed.
+     * @return a lazy stream of orders that must be closed
+     */
+    public Stream<Orders> streamOrders() {
+        return ordersDAO.stream();
+    }
 }
@@ -1,23 +1,44 @@
 package org.example.BusinessLogic;
 
+import org.example.BusinessLogic.Validators.Rules;
 import org.example.BusinessLogic.Validators.Validator;
+import org.example.BusinessLogic.Validators.ValidatorChain;
+import org.example.Connection.UnitOfWork;
+import org.example.DataAccess.AbstractDAO;
+import org.example.DataAccess.BatchResult;
+import org.example.DataAccess.EntityCache;
 import org.example.DataAccess.ProductDAO;
 import org.example.Model.Product;
+import org.example.PrimitiveCollections.IntArrayList;
+import org.example.PrimitiveCollections.IntHashSet;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.stream.Stream;
 
 public class ProductBLL {
-    private List<Validator<Product>> validators;
+    private static final Validator<Product> RULES = new Rules<Product>()
+            .range("quantity", Product::getQuantityPro, 0, Integer.MAX_VALUE)
+            .range("price", Product::getPrice, 0, Integer.MAX_VALUE)
+            .notNull("name", Product::getName)
+            .compile();
+
+    private ValidatorChain<Product> validators;
     private ProductDAO productDA;
 
     /**
      * Initializes the validators and the ProductDAO.
      */
     public ProductBLL() {
-        validators = new ArrayList<Validator<Product>>();
+        validators = new ValidatorChain<>();
+        validators.add(RULES);
         productDA = new ProductDAO();
     }
 
@@ -41,10 +62,49 @@ public class ProductBLL {
      * @return the inserted product
      */
     public Product insertProduct(Product product) {
-        for (Validator<Product> v : validators) {
-            v.validate(product);
+        validators.validate(product);
+        Product inserted = productDA.insert(product);
+        InventoryService.getInstance().forget(inserted.getId());
+        return inserted;
+    }
+
+    /**
+     * Validates and inserts a list of products in JDBC batches of the default size.
+     * @param products the products to insert
+     * @return the inserted products and the rejected rows with their reason
+     */
+    public BatchResult<Product> insertProducts(List<Product> products) {
+        return insertProducts(products, AbstractDAO.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Validates a list of products and inserts the valid ones in one transaction.
+     * Rows rejected by a validator or by the database are reported by their position in the list.
+     * @param products the products to insert
+     * @param batchSize the number of rows sent to the database in one batch
+     * @return the inserted products and the rejected rows with their reason
+     * @throws IllegalArgumentException if batchSize is not positive
+     */
+    public BatchResult<Product> insertProducts(List<Product> products, int batchSize) {
+        BatchResult<Product> result = new BatchResult<>();
+        List<Product> valid = new ArrayList<>();
+        List<Integer> rows = new ArrayList<>();
+        Map<Integer, String> errors = validators.validateAll(products);
+        for (int i = 0; i < products.size(); i++) {
+            String error = errors.get(i);
+            if (error == null) {
+                valid.add(products.get(i));
+                rows.add(i);
+            } else {
+                result.addFailure(i, error);
+            }
         }
-        return productDA.insert(product);
+        result.merge(productDA.insertAll(valid, batchSize), rows);
+        InventoryService inventory = InventoryService.getInstance();
+        for (Product product : result.getInserted()) {
+            inventory.forget(product.getId());
+        }
+        return result;
     }
 
     /**
@@ -55,7 +115,174 @@ public class ProductBLL {
      * @return the updated product
      */
     public Product update(int id, String column, Object value) {
-        return productDA.update(column, value, id);
+        return update(id, Collections.singletonMap(column, value), true);
+    }
+
+    /**
+     * Updates several columns of a product with one statement.
+     * @param id the ID of the product to update
+     * @param changes the new value of every changed column
+     * @return the updated product
+     */
+    public Product update(int id, Map<String, Object> changes) {
+        return update(id, changes, true);
+    }
+
+    /**
+     * Updates several columns of a product with one statement.
+     * When the {@link InventoryService} is started, a new quantityPro sets the quantity that can be reserved
+     * and is written as the difference to the quantity available before, in one transaction with the other
+     * columns, so reservations that are not folded into the Product table yet are not lost.
+     * @param id the ID of the product to update
+     * @param changes the new value of every changed column
+     * @param reload whether to read the updated product back
+     * @return the updated product, or null if reload is false
+     */
+    public Product update(int id, Map<String, Object> changes, boolean reload) {
+        InventoryService inventory = InventoryService.getInstance();
+        String quantityColumn = null;
+        for (String column : changes.keySet()) {
+            if (column.equalsIgnoreCase("quantityPro")) {
+                quantityColumn = column;
+            }
+        }
+        if (!inventory.isEnabled() || quantityColumn == null) {
+            return productDA.update(id, changes, reload);
+        }
+        int quantity = Integer.parseInt(String.valueOf(changes.get(quantityColumn)));
+        Map<String, Object> others = new LinkedHashMap<>(changes);
+        others.remove(quantityColumn);
+        return UnitOfWork.execute(() -> {
+            int delta = inventory.set(id, quantity);
+            UnitOfWork.onRollback(() -> inventory.release(id, -delta));
+            productDA.increaseQuantity(id, delta);
+            if (!others.isEmpty()) {
+                return productDA.update(id, others, reload);
+            }
+            return reload ? productDA.findById(id) : null;
+        });
+    }
+
+    /**
+     * Reserves stock for an order. When the {@link InventoryService} is started the reservation is made in memory
+     * and recorded in the stock ledger in the current transaction, and the memory is given back if the
+     * transaction rolls back; otherwise the check and the decrement are one statement in the database.
+     * Either way concurrent reservations never take more than what is in stock.
+     * @param id the ID of the product
+     * @param quantity the quantity to reserve
+     * @return true if the stock was reserved, false if there is not enough of it
+     * @throws IllegalArgumentException if the quantity is not positive
+     */
+    public boolean reserveStock(int id, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("The quantity must be positive!");
+        }
+        InventoryService inventory = InventoryService.getInstance();
+        if (!inventory.isEnabled()) {
+            return productDA.decreaseQuantity(id, quantity);
+        }
+        if (!inventory.reserve(id, quantity)) {
+            return false;
+        }
+        boolean inUnitOfWork = UnitOfWork.onRollback(() -> inventory.release(id, quantity));
+        if (!productDA.recordStockChanges(new int[]{id}, new int[]{quantity}) && !inUnitOfWork) {
+            inventory.release(id, quantity);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reserves stock for several orders with one batch of conditional updates, or in memory when the
+     * {@link InventoryService} is started.
+     * @param ids the ID of the product of every reservation
+     * @param quantities the quantity of every reservation, all positive
+     * @return for every reservation, whether the stock was reserved
+     */
+    public boolean[] reserveStock(int[] ids, int[] quantities) {
+        if (!InventoryService.getInstance().isEnabled()) {
+            return productDA.decreaseQuantities(ids, quantities);
+        }
+        InventoryService inventory = InventoryService.getInstance();
+        boolean[] reserved = new boolean[ids.length];
+        IntArrayList reservedIds = new IntArrayList();
+        IntArrayList reservedQuantities = new IntArrayList();
+        for (int i = 0; i < ids.length; i++) {
+            try {
+                reserved[i] = inventory.reserve(ids[i], quantities[i]);
+            } catch (NoSuchElementException e) {
+                reserved[i] = false;
+            }
+            if (reserved[i]) {
+                int id = ids[i];
+                int quantity = quantities[i];
+                UnitOfWork.onRollback(() -> inventory.release(id, quantity));
+                reservedIds.add(id);
+                reservedQuantities.add(quantity);
+            }
+        }
+        if (!productDA.recordStockChanges(reservedIds.toArray(), reservedQuantities.toArray())
+                && !UnitOfWork.isActive()) {
+            for (int i = 0; i < reservedIds.size(); i++) {
+                inventory.release(reservedIds.get(i), reservedQuantities.get(i));
+            }
+            Arrays.fill(reserved, false);
+        }
+        return reserved;
+    }
+
+    /**
+     * Gives back stock reserved with reserveStock. Inside a unit of work the in-memory stock is given back
+     * only once the transaction commits: if it rolls back, the reservation itself is undone instead, so a
+     * reservation is never given back twice.
+     * @param id the ID of the product
+     * @param quantity the quantity to give back
+     */
+    public void releaseStock(int id, int quantity) {
+        InventoryService inventory = InventoryService.getInstance();
+        if (!inventory.isEnabled()) {
+            productDA.increaseQuantity(id, quantity);
+            return;
+        }
+        boolean recorded = productDA.recordStockChanges(new int[]{id}, new int[]{-quantity});
+        if (!UnitOfWork.afterCommit(() -> inventory.release(id, quantity)) && recorded) {
+            inventory.release(id, quantity);
+        }
+    }
+
+    /**
+     * Switches a product in or out of hot mode, in which its stock is split into sub-counters that
+     * concurrent orders decrement independently, see {@link InventoryService#enableHotMode(int)}.
+     * @param id the ID of the product
+     * @param hot whether the product receives most of the orders
+     * @throws IllegalStateException if the inventory is not started
+     * @throws NoSuchElementException if the product does not exist
+     */
+    public void setHot(int id, boolean hot) {
+        InventoryService inventory = InventoryService.getInstance();
+        if (!inventory.isEnabled()) {
+            throw new IllegalStateException("The inventory is not started!");
+        }
+        if (hot) {
+            inventory.enableHotMode(id);
+        } else {
+            inventory.disableHotMode(id);
+        }
+    }
+
+    /**
+     * Returns the quantity of a product that can still be ordered, from memory when the
+     * {@link InventoryService} is started.
+     * @param id the ID of the product
+     * @return the available quantity
+     * @throws NoSuchElementException if the product does not exist
+     */
+    public int availableStock(int id) {
+        InventoryService inventory = InventoryService.getInstance();
+        if (inventory.isEnabled()) {
+            return inventory.available(id);
+        }
+        return findProductById(id).getQuantityPro();
     }
 
     /**
@@ -64,6 +291,10 @@ public class ProductBLL {
      */
     public void deleteProduct(int id) {
         productDA.delete(id);
+        InventoryService inventory = InventoryService.getInstance();
+        if (!UnitOfWork.afterCommit(() -> inventory.remove(id))) {
+            inventory.remove(id);
+        }
         System.out.println("Deleted!");
     }
 
@@ -80,10 +311,18 @@ public class ProductBLL {
      * Retrieves all product IDs.
      * @return a list of product IDs
      */
-    public List<Integer> getProductsId() {
+    public IntArrayList getProductsId() {
         return productDA.getIds(Product.class);
     }
 
+    /**
+     * Retrieves the IDs of all products as a hash set, for repeated membership checks.
+     * @return the set of product IDs
+     */
+    public IntHashSet getProductIdSet() {
+        return productDA.getIdSet();
+    }
+
     /**
      * Retrieves all products from the product table.
      * @return a list of all products
@@ -91,4 +330,53 @@ public class ProductBLL {
     public List<Product> findAllProducts() {
         return productDA.findAll();
     }
+
+    /**
+     * Finds several products with one or a few queries instead of one query per id.
+     * @param ids the IDs of the products to find
+     * @return the found products keyed by ID; missing IDs are absent from the map
+     * @throws IllegalStateException if the products could not be read
+     */
+    public Map<Integer, Product> findProductsByIds(Collection<Integer> ids) {
+        Map<Integer, Product> found = productDA.findByIds(ids);
+        if (found == null) {
+            throw new IllegalStateException("The products could not be read!");
+        }
+        return found;
+    }
+
+    /**
+     * Retrieves one page of products ordered by id.
+     * @param afterId the last id of the previous page, or 0 for the first page
+     * @param limit the maximum number of products in the page
+     * @return the products that follow afterId
+     */
+    public List<Product> findProductsPage(int afterId, int limit) {
+        return productDA.findPage(afterId, limit);
+    }
+
+    /**
+     * Streams all products through a database cursor instead of loading the whole table.
+     * The stream holds a connection until it is closed.
+     * @return a lazy stream of products that must be closed
+     */
+    public Stream<Product> streamProducts() {
+        return productDA.stream();
+    }
+
+    /**
+     * Caches products read by id, so repeated lookups of the same product do not query the database.
+     * @param maxSize the maximum number of cached products
+     * @param ttlMillis how long a product stays cached after it was read
+     */
+    public void enableCache(int maxSize, long ttlMillis) {
+        productDA.enableCache(maxSize, ttlMillis);
+    }
+
+    /**
+     * @return the product cache with its hit, miss and eviction counters, or null if it is disabled
+     */
+    public EntityCache<Product> getCache() {
+        return productDA.getCache();
+    }
 }
@@ -0,0 +1,232 @@
+package org.example.BusinessLogic;
+
+import org.example.Connection.UnitOfWork;
+import org.example.DataAccess.OrdersDAO;
+import org.example.DataAccess.SalesTotals;
+import org.example.Model.Orders;
+import org.example.PrimitiveCollections.IntIntHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Running sales totals: the number of orders, the ordered units and the revenue of every product and
+ * every client. The totals are built from the database with two aggregate queries when the service starts
+ * and are then kept up to date by {@link OrdersBLL} and {@link BillBLL}: every change is applied once its
+ * transaction commits, so the totals never show work that is rolled back. A lookup is one probe in a
+ * primitive hash table and does not touch the database.
+ * Until {@link #start()} is called the service is disabled and ignores changes.
+ */
+public final class SalesAggregates {
+    private static final Logger LOGGER = Logger.getLogger(SalesAggregates.class.getName());
+
+    private static final SalesAggregates INSTANCE = new SalesAggregates();
+
+    private final OrdersDAO ordersDAO = new OrdersDAO();
+    private final Totals byProduct = new Totals();
+    private final Totals byClient = new Totals();
+    private volatile boolean enabled;
+
+    private SalesAggregates() {
+    }
+
+    /**
+     * @return the aggregates shared by the application
+     */
+    public static SalesAggregates getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Loads the totals from the database and starts following changes. Call it at startup, before
+     * orders are placed; changes committed while the totals load may otherwise be missed.
+     * @return true if the totals were loaded
+     */
+    public synchronized boolean start() {
+        if (enabled) {
+            return true;
+        }
+        List<SalesTotals> products = ordersDAO.findSalesByProduct();
+        List<SalesTotals> clients = ordersDAO.findSalesByClient();
+        if (products == null || clients == null) {
+            LOGGER.log(Level.WARNING, "SalesAggregates:start the sales totals could not be loaded");
+            return false;
+        }
+        byProduct.load(products);
+        byClient.load(clients);
+        enabled = true;
+        return true;
+    }
+
+    /**
+     * Stops following changes and drops the totals.
+     */
+    public synchronized void stop() {
+        enabled = false;
+        byProduct.load(List.of());
+        byClient.load(List.of());
+    }
+
+    /**
+     * @return true if the totals are loaded and kept up to date
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param productId the ID of a product
+     * @return the orders, units and revenue of the product, all 0 if it was never ordered
+     */
+    public SalesTotals getProductSales(int productId) {
+        return byProduct.get(productId);
+    }
+
+    /**
+     * @param clientId the ID of a client
+     * @return the orders, units and revenue of the client, all 0 if it never ordered
+     */
+    public SalesTotals getClientSales(int clientId) {
+        return byClient.get(clientId);
+    }
+
+    /**
+     * @return the orders, units and revenue of all orders, with id 0
+     */
+    public SalesTotals getTotalSales() {
+        return byProduct.total();
+    }
+
+    /**
+     * Counts a new order and its bill once the current transaction commits.
+     * @param order the inserted order
+     * @param revenue the total of its bill
+     */
+    void orderPlaced(Orders order, long revenue) {
+        apply(order.getProduct(), order.getClient(), 1, order.getQuantityOrd(), revenue);
+    }
+
+    /**
+     * Removes a deleted order and its bill from the totals once the current transaction commits.
+     * @param order the order as it was before the delete
+     * @param revenue the total of its bill, or 0 if it had none
+     */
+    void orderRemoved(Orders order, long revenue) {
+        apply(order.getProduct(), order.getClient(), -1, -order.getQuantityOrd(), -revenue);
+    }
+
+    /**
+     * Moves an updated order to its new product, client and quantity once the current transaction commits.
+     * @param before the order before the update
+     * @param after the order after the update
+     * @param revenue the total of its bill, which is not changed by the update
+     */
+    void orderChanged(Orders before, Orders after, long revenue) {
+        orderRemoved(before, revenue);
+        orderPlaced(after, revenue);
+    }
+
+    /**
+     * Removes the revenue of a deleted bill once the current transaction commits; its order stays counted.
+     * @param order the order of the bill
+     * @param revenue the total of the bill
+     */
+    void billRemoved(Orders order, long revenue) {
+        apply(order.getProduct(), order.getClient(), 0, 0, -revenue);
+    }
+
+    /**
+     * Removes all orders of a client once the current transaction commits.
+     * @param clientId the ID of the client
+     * @param totals the totals of the client per product, read before the orders were deleted
+     */
+    void clientOrdersRemoved(int clientId, List<SalesTotals> totals) {
+        if (!enabled) {
+            return;
+        }
+        whenCommitted(() -> {
+            for (SalesTotals product : totals) {
+                byProduct.add(product.id(), -product.orders(), -product.units(), -product.revenue());
+                byClient.add(clientId, -product.orders(), -product.units(), -product.revenue());
+            }
+        });
+    }
+
+    private void apply(int productId, int clientId, long orders, long units, long revenue) {
+        if (!enabled) {
+            return;
+        }
+        whenCommitted(() -> {
+            byProduct.add(productId, orders, units, revenue);
+            byClient.add(clientId, orders, units, revenue);
+        });
+    }
+
+    /**
+     * Runs an action after the current transaction commits, or right away outside a transaction.
+     */
+    private static void whenCommitted(Runnable action) {
+        if (!UnitOfWork.afterCommit(action)) {
+            action.run();
+        }
+    }
+
+    /**
+     * Totals keyed by product or client id: a map from the id to a slot in parallel arrays of counters.
+     */
+    private static final class Totals {
+        private IntIntHashMap slots = new IntIntHashMap();
+        private long[] orders = new long[16];
+        private long[] units = new long[16];
+        private long[] revenue = new long[16];
+        private int size;
+        private long totalOrders;
+        private long totalUnits;
+        private long totalRevenue;
+
+        synchronized void load(List<SalesTotals> rows) {
+            slots = new IntIntHashMap(rows.size());
+            int capacity = Math.max(16, rows.size());
+            orders = new long[capacity];
+            units = new long[capacity];
+            revenue = new long[capacity];
+            size = 0;
+            totalOrders = 0;
+            totalUnits = 0;
+            totalRevenue = 0;
+            for (SalesTotals row : rows) {
+                add(row.id(), row.orders(), row.units(), row.revenue());
+            }
+        }
+
+        synchronized void add(int id, long orderDelta, long unitDelta, long revenueDelta) {
+            int slot = slots.get(id, -1);
+            if (slot < 0) {
+                if (size == orders.length) {
+                    orders = Arrays.copyOf(orders, size * 2);
+                    units = Arrays.copyOf(units, size * 2);
+                    revenue = Arrays.copyOf(revenue, size * 2);
+                }
+                slot = size++;
+                slots.put(id, slot);
+            }
+            orders[slot] += orderDelta;
+            units[slot] += unitDelta;
+            revenue[slot] += revenueDelta;
+            totalOrders += orderDelta;
+            totalUnits += unitDelta;
+            totalRevenue += revenueDelta;
+        }
+
+        synchronized SalesTotals get(int id) {
+            int slot = slots.get(id, -1);
+            return slot < 0 ? new SalesTotals(id, 0, 0, 0) : new SalesTotals(id, orders[slot], units[slot], revenue[slot]);
+        }
+
+        synchronized SalesTotals total() {
+            return new SalesTotals(0, totalOrders, totalUnits, totalRevenue);
+        }
+    }
+}
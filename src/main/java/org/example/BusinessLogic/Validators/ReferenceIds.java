@@ -0,0 +1,60 @@
+package org.example.BusinessLogic.Validators;
+
+import org.example.DataAccess.QueryCache;
+import org.example.PrimitiveCollections.IntHashSet;
+
+import java.util.function.Supplier;
+
+/**
+ * The ids of a referenced table, kept in memory so that foreign-key rules check a hash set instead of
+ * running one query per row. The set is reloaded when the application writes to the table, and at most
+ * once per second when an id is missing, for rows added by other applications.
+ */
+public final class ReferenceIds {
+    private static final long RELOAD_ON_MISS_NANOS = 1_000_000_000L;
+
+    private final String table;
+    private final Supplier<IntHashSet> loader;
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param table the referenced table, as named in the {@link QueryCache}
+     * @param loader reads every id of the table
+     */
+    public ReferenceIds(String table, Supplier<IntHashSet> loader) {
+        this.table = table;
+        this.loader = loader;
+    }
+
+    /**
+     * @param id the referenced id
+     * @return true if a row with the id exists
+     */
+    public boolean contains(int id) {
+        long version = QueryCache.getInstance().getVersion(table);
+        Snapshot current = snapshot;
+        if (current == null || current.version != version) {
+            current = reload(version);
+        }
+        if (current.ids.contains(id)) {
+            return true;
+        }
+        if (System.nanoTime() - current.loadedAt > RELOAD_ON_MISS_NANOS) {
+            return reload(version).ids.contains(id);
+        }
+        return false;
+    }
+
+    private synchronized Snapshot reload(long version) {
+        Snapshot current = snapshot;
+        if (current != null && current.version == version && System.nanoTime() - current.loadedAt <= RELOAD_ON_MISS_NANOS) {
+            return current;
+        }
+        current = new Snapshot(version, loader.get(), System.nanoTime());
+        snapshot = current;
+        return current;
+    }
+
+    private record Snapshot(long version, IntHashSet ids, long loadedAt) {
+    }
+}
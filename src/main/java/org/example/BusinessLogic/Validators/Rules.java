@@ -0,0 +1,176 @@
+package org.example.BusinessLogic.Validators;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Declarative validation rules for one entity type, compiled into a single validator.
+ * The compiled validator checks the rules of each kind together from flat arrays, in a fixed order:
+ * ranges, required values, foreign keys and then custom checks, so the cheap rules reject a row before
+ * the ones that need lookups run.
+ * <pre>
+ * Validator&lt;Orders&gt; validator = new Rules&lt;Orders&gt;()
+ *         .range("quantity", Orders::getQuantityOrd, 1, Integer.MAX_VALUE)
+ *         .exists("product", Orders::getProduct, productIds)
+ *         .compile();
+ * </pre>
+ * @param <T> the type of the validated objects
+ */
+public final class Rules<T> {
+    private final List<ToIntFunction<T>> rangeGetters = new ArrayList<>();
+    private final List<int[]> rangeBounds = new ArrayList<>();
+    private final List<String> rangeMessages = new ArrayList<>();
+    private final List<Function<T, ?>> requiredGetters = new ArrayList<>();
+    private final List<String> requiredMessages = new ArrayList<>();
+    private final List<ToIntFunction<T>> referenceGetters = new ArrayList<>();
+    private final List<ReferenceIds> references = new ArrayList<>();
+    private final List<String> referenceNames = new ArrayList<>();
+    private final List<Predicate<T>> checks = new ArrayList<>();
+    private final List<String> checkMessages = new ArrayList<>();
+
+    /**
+     * Requires an int property to lie between two bounds.
+     * @param property the name of the property used in the error message
+     * @param getter reads the property
+     * @param min the smallest allowed value
+     * @param max the largest allowed value
+     * @return these rules
+     */
+    public Rules<T> range(String property, ToIntFunction<T> getter, int min, int max) {
+        rangeGetters.add(getter);
+        rangeBounds.add(new int[]{min, max});
+        rangeMessages.add(max == Integer.MAX_VALUE
+                ? "The " + property + " must be at least " + min + "!"
+                : "The " + property + " must be between " + min + " and " + max + "!");
+        return this;
+    }
+
+    /**
+     * Requires a property to be set; strings must also not be blank.
+     * @param property the name of the property used in the error message
+     * @param getter reads the property
+     * @return these rules
+     */
+    public Rules<T> notNull(String property, Function<T, ?> getter) {
+        requiredGetters.add(getter);
+        requiredMessages.add("The " + property + " must not be empty!");
+        return this;
+    }
+
+    /**
+     * Requires an int property to reference an existing row. A missing row is reported with a
+     * {@link NoSuchElementException}, like the find methods of the BLL classes.
+     * @param property the name of the referenced entity used in the error message
+     * @param getter reads the referenced id
+     * @param ids the ids of the referenced table
+     * @return these rules
+     */
+    public Rules<T> exists(String property, ToIntFunction<T> getter, ReferenceIds ids) {
+        referenceGetters.add(getter);
+        references.add(ids);
+        referenceNames.add(property);
+        return this;
+    }
+
+    /**
+     * Adds any other condition that a single object can be checked against without a lookup per row.
+     * @param condition must hold for a valid object; exceptions it throws reject the object with their message
+     * @param message the error message when the condition does not hold
+     * @return these rules
+     */
+    public Rules<T> check(Predicate<T> condition, String message) {
+        checks.add(condition);
+        checkMessages.add(message);
+        return this;
+    }
+
+    /**
+     * @return a validator that checks all the rules added so far; the other failures throw an IllegalArgumentException
+     */
+    public Validator<T> compile() {
+        int ranges = rangeGetters.size();
+        int[] min = new int[ranges];
+        int[] max = new int[ranges];
+        for (int i = 0; i < ranges; i++) {
+            min[i] = rangeBounds.get(i)[0];
+            max[i] = rangeBounds.get(i)[1];
+        }
+        return new Compiled<>(toArray(rangeGetters, ToIntFunction.class), min, max, rangeMessages.toArray(new String[0]),
+                toArray(requiredGetters, Function.class), requiredMessages.toArray(new String[0]),
+                toArray(referenceGetters, ToIntFunction.class), references.toArray(new ReferenceIds[0]),
+                referenceNames.toArray(new String[0]),
+                toArray(checks, Predicate.class), checkMessages.toArray(new String[0]));
+    }
+
+    /**
+     * Copies a list of generic functions into an array, which Java cannot create with its type arguments.
+     * @param type the class of the elements without type arguments
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> E[] toArray(List<E> list, Class<?> type) {
+        return list.toArray((E[]) Array.newInstance(type, 0));
+    }
+
+    private static final class Compiled<T> implements Validator<T> {
+        private final ToIntFunction<T>[] rangeGetters;
+        private final int[] min;
+        private final int[] max;
+        private final String[] rangeMessages;
+        private final Function<T, ?>[] requiredGetters;
+        private final String[] requiredMessages;
+        private final ToIntFunction<T>[] referenceGetters;
+        private final ReferenceIds[] references;
+        private final String[] referenceNames;
+        private final Predicate<T>[] checks;
+        private final String[] checkMessages;
+
+        private Compiled(ToIntFunction<T>[] rangeGetters, int[] min, int[] max, String[] rangeMessages,
+                         Function<T, ?>[] requiredGetters, String[] requiredMessages,
+                         ToIntFunction<T>[] referenceGetters, ReferenceIds[] references, String[] referenceNames,
+                         Predicate<T>[] checks, String[] checkMessages) {
+            this.rangeGetters = rangeGetters;
+            this.min = min;
+            this.max = max;
+            this.rangeMessages = rangeMessages;
+            this.requiredGetters = requiredGetters;
+            this.requiredMessages = requiredMessages;
+            this.referenceGetters = referenceGetters;
+            this.references = references;
+            this.referenceNames = referenceNames;
+            this.checks = checks;
+            this.checkMessages = checkMessages;
+        }
+
+        @Override
+        public void validate(T t) {
+            for (int i = 0; i < rangeGetters.length; i++) {
+                int value = rangeGetters[i].applyAsInt(t);
+                if (value < min[i] || value > max[i]) {
+                    throw new IllegalArgumentException(rangeMessages[i]);
+                }
+            }
+            for (int i = 0; i < requiredGetters.length; i++) {
+                Object value = requiredGetters[i].apply(t);
+                if (value == null || (value instanceof String text && text.isBlank())) {
+                    throw new IllegalArgumentException(requiredMessages[i]);
+                }
+            }
+            for (int i = 0; i < referenceGetters.length; i++) {
+                int id = referenceGetters[i].applyAsInt(t);
+                if (!references[i].contains(id)) {
+                    throw new NoSuchElementException("The " + referenceNames[i] + " with id= " + id + " was not found!");
+                }
+            }
+            for (int i = 0; i < checks.length; i++) {
+                if (!checks[i].test(t)) {
+                    throw new IllegalArgumentException(checkMessages[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.BusinessLogic.Validators;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Runs several validators one after the other, and validates whole lists of rows in parallel.
+ * The validators must not keep state between calls, since rows are validated on several threads.
+ * @param <T> the type of the validated objects
+ */
+public class ValidatorChain<T> implements Validator<T> {
+    /**
+     * Lists shorter than this are validated on the calling thread.
+     */
+    private static final int PARALLEL_THRESHOLD = 1_000;
+
+    private final List<Validator<T>> validators = new ArrayList<>();
+
+    /**
+     * Appends a validator to the chain.
+     * @param validator the validator to run after the current ones
+     * @return this chain
+     */
+    public ValidatorChain<T> add(Validator<T> validator) {
+        validators.add(validator);
+        return this;
+    }
+
+    /**
+     * Runs every validator of the chain.
+     * @param t the object to validate
+     * @throws IllegalArgumentException or another RuntimeException from the first validator that rejects it
+     */
+    @Override
+    public void validate(T t) {
+        for (Validator<T> v : validators) {
+            v.validate(t);
+        }
+    }
+
+    /**
+     * Validates every row of a list, in parallel for long lists.
+     * @param rows the objects to validate
+     * @return the message of the first failed validator of every rejected row, keyed by its position in the list
+     */
+    public SortedMap<Integer, String> validateAll(List<T> rows) {
+        String[] errors = new String[rows.size()];
+        IntStream indexes = IntStream.range(0, rows.size());
+        if (rows.size() >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> {
+            try {
+                validate(rows.get(i));
+            } catch (RuntimeException e) {
+                errors[i] = e.getMessage() != null ? e.getMessage() : e.toString();
+            }
+        });
+        SortedMap<Integer, String> failures = new TreeMap<>();
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                failures.put(i, errors[i]);
+            }
+        }
+        return failures;
+    }
+}
@@ -1,7 +1,6 @@
 package org.example.Connection;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -18,24 +17,38 @@ public class ConnectionFactory {
 
     private static final Logger LOGGER = Logger.getLogger(ConnectionFactory.class.getName());
     private static final String DRIVER = "com.mysql.cj.jdbc.Driver";
-    private static final String DBURL =  "jdbc:mysql://127.0.0.1:3306/dbtp";
+    private static final String DBURL =  "jdbc:mysql://127.0.0.1:3306/dbtp?rewriteBatchedStatements=true";
+    private static final String CURSOR_DBURL = DBURL + "&useCursorFetch=true";
     private static final String USER = "root";
     private static final String PASS = "D3x1cr1s71n2004";
 
+    private static final int POOL_MAX_SIZE = 10;
+    private static final long POOL_MAX_WAIT_MILLIS = 5_000;
+    private static final long POOL_IDLE_TIMEOUT_MILLIS = 10 * 60_000;
+    private static final long POOL_LEAK_THRESHOLD_MILLIS = 60_000;
+    private static final int CURSOR_POOL_MAX_SIZE = 4;
+
     private static ConnectionFactory singleInstance = new ConnectionFactory();
 
+    private final ConnectionPool pool;
+    private final ConnectionPool cursorPool;
+
     private ConnectionFactory() {
         try {
             Class.forName(DRIVER);
         } catch (ClassNotFoundException e) {
             e.printStackTrace();
         }
+        pool = new ConnectionPool(DBURL, USER, PASS, POOL_MAX_SIZE,
+                POOL_MAX_WAIT_MILLIS, POOL_IDLE_TIMEOUT_MILLIS, POOL_LEAK_THRESHOLD_MILLIS);
+        cursorPool = new ConnectionPool(CURSOR_DBURL, USER, PASS, CURSOR_POOL_MAX_SIZE,
+                POOL_MAX_WAIT_MILLIS, POOL_IDLE_TIMEOUT_MILLIS, 0);
     }
 
-    private Connection createConnection() {
+    private Connection createConnection(ConnectionPool from) {
         Connection connection = null;
         try {
-            connection = DriverManager.getConnection(DBURL, USER, PASS);
+            connection = from.borrow();
         } catch (SQLException e) {
             LOGGER.log(Level.WARNING, "An error occured while trying to connect to the database");
             e.printStackTrace();
@@ -43,20 +56,54 @@ public class ConnectionFactory {
         return connection;
     }
 
+    /**
+     * Borrows a connection from the pool. It must be handed back with {@link #close(Connection)}.
+     * Inside a {@link UnitOfWork} the connection of the unit of work is returned instead.
+     * @return a pooled connection or null if none could be obtained
+     */
     public static Connection getConnection() {
-        return singleInstance.createConnection();
+        Connection bound = UnitOfWork.boundConnection();
+        if (bound != null) {
+            return bound;
+        }
+        return singleInstance.createConnection(singleInstance.pool);
+    }
+
+    /**
+     * Borrows a connection that reads result sets through a server-side cursor, a fetch size at a time.
+     * Cursor fetch makes the driver prepare every statement on the server, which costs an extra round trip
+     * per statement, so only streaming reads use these connections; they come from a small pool of their own.
+     * Inside a {@link UnitOfWork} the connection of the unit of work is returned instead.
+     * @return a cursor connection or null if none could be obtained
+     */
+    public static Connection getCursorConnection() {
+        Connection bound = UnitOfWork.boundConnection();
+        if (bound != null) {
+            return bound;
+        }
+        return singleInstance.createConnection(singleInstance.cursorPool);
     }
 
+    /**
+     * Returns a connection obtained from {@link #getConnection()} or {@link #getCursorConnection()} to its pool.
+     * The connection of a running {@link UnitOfWork} stays open until the unit of work ends.
+     * @param connection the connection to return
+     */
     public static void close(Connection connection) {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                LOGGER.log(Level.WARNING, "An error occured while trying to close the connection");
-            }
+        if (connection != null && connection != UnitOfWork.boundConnection()) {
+            ConnectionPool owner = singleInstance.cursorPool.owns(connection) ? singleInstance.cursorPool : singleInstance.pool;
+            owner.release(connection);
         }
     }
 
+    /**
+     * Closes every pooled connection, used when the application shuts down.
+     */
+    public static void shutdown() {
+        singleInstance.pool.shutdown();
+        singleInstance.cursorPool.shutdown();
+    }
+
     public static void close(Statement statement) {
         if (statement != null) {
             try {
@@ -0,0 +1,241 @@
+package org.example.Connection;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of JDBC connections.
+ * At most maxSize connections are open at the same time, callers wait at most maxWaitMillis for a free one,
+ * idle connections are validated before they are handed out and evicted after idleTimeoutMillis,
+ * and connections that are kept longer than leakThresholdMillis are reported as possible leaks.
+ */
+public class ConnectionPool {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    /**
+     * Connections that were used more recently than this are handed out without a validation round trip.
+     */
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<IdleConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<Connection, Lease> leased = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    /**
+     * Creates a pool and starts its housekeeping thread.
+     * @param url the JDBC url of the database
+     * @param user the database user
+     * @param password the database password
+     * @param maxSize the maximum number of open connections
+     * @param maxWaitMillis how long getConnection waits for a free connection
+     * @param idleTimeoutMillis how long a connection may stay unused before it is closed
+     * @param leakThresholdMillis how long a connection may be borrowed before it is reported, 0 disables the check
+     */
+    public ConnectionPool(String url, String user, String password, int maxSize,
+                          long maxWaitMillis, long idleTimeoutMillis, long leakThresholdMillis) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis > 0 ? leakThresholdMillis : idleTimeoutMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, reusing an idle one when possible.
+     * @return an open connection that must be handed back with release
+     * @throws SQLTimeoutException if no connection became free within maxWaitMillis
+     * @throws SQLException if a new connection could not be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out after " + maxWaitMillis + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        try {
+            Connection connection = null;
+            IdleConnection candidate;
+            while ((candidate = idle.pollFirst()) != null) {
+                if (isUsable(candidate)) {
+                    connection = candidate.connection;
+                    break;
+                }
+                closeQuietly(candidate.connection);
+            }
+            if (connection == null) {
+                connection = DriverManager.getConnection(url, user, password);
+            }
+            Throwable origin = leakThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null;
+            leased.put(connection, new Lease(System.currentTimeMillis(), Thread.currentThread().getName(), origin));
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Hands a borrowed connection back to the pool.
+     * Open transactions are rolled back and auto-commit is restored; broken connections are closed instead of pooled.
+     * @param connection the connection to release
+     */
+    public void release(Connection connection) {
+        if (leased.remove(connection) == null) {
+            LOGGER.log(Level.WARNING, "A connection that does not belong to the pool was released, closing it");
+            closeQuietly(connection);
+            return;
+        }
+        try {
+            if (closed || connection.isClosed()) {
+                closeQuietly(connection);
+                return;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            idle.offerFirst(new IdleConnection(connection, System.currentTimeMillis()));
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Discarding a connection that could not be reset: " + e.getMessage());
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the housekeeping thread.
+     * Borrowed connections are closed when they are released.
+     */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            closeQuietly(candidate.connection);
+        }
+    }
+
+    /**
+     * @param connection a connection
+     * @return true if the connection was borrowed from this pool and not released yet
+     */
+    public boolean owns(Connection connection) {
+        return leased.containsKey(connection);
+    }
+
+    /**
+     * @return the number of connections currently borrowed
+     */
+    public int getActiveCount() {
+        return leased.size();
+    }
+
+    /**
+     * @return the number of open connections waiting in the pool
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    private boolean isUsable(IdleConnection candidate) {
+        if (System.currentTimeMillis() - candidate.lastUsed < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return candidate.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Evicts connections idle for longer than idleTimeoutMillis and reports connections borrowed
+     * for longer than leakThresholdMillis.
+     */
+    private void houseKeep() {
+        long now = System.currentTimeMillis();
+        for (IdleConnection candidate : idle) {
+            if (now - candidate.lastUsed > idleTimeoutMillis && idle.remove(candidate)) {
+                closeQuietly(candidate.connection);
+            }
+        }
+        if (leakThresholdMillis <= 0) {
+            return;
+        }
+        for (Lease lease : leased.values()) {
+            if (!lease.reported && now - lease.borrowedAt > leakThresholdMillis) {
+                lease.reported = true;
+                LOGGER.log(Level.WARNING, "Possible connection leak: a connection borrowed by thread " + lease.thread
+                        + " has not been released for " + (now - lease.borrowedAt) + " ms", lease.origin);
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "An error occured while trying to close a pooled connection");
+        }
+    }
+
+    private static final class IdleConnection {
+        private final Connection connection;
+        private final long lastUsed;
+
+        private IdleConnection(Connection connection, long lastUsed) {
+            this.connection = connection;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private static final class Lease {
+        private final long borrowedAt;
+        private final String thread;
+        private final Throwable origin;
+        private volatile boolean reported;
+
+        private Lease(long borrowedAt, String thread, Throwable origin) {
+            this.borrowedAt = borrowedAt;
+            this.thread = thread;
+            this.origin = origin;
+        }
+    }
+}
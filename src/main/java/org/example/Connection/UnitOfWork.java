@@ -0,0 +1,224 @@
+package org.example.Connection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a piece of work in one database transaction.
+ * While the work runs, {@link ConnectionFactory#getConnection()} returns the same connection on this thread,
+ * so every DAO call joins the transaction, and the work is committed once at the end.
+ * A unit of work started inside another one joins the outer transaction.
+ */
+public final class UnitOfWork {
+    private static final Logger LOGGER = Logger.getLogger(UnitOfWork.class.getName());
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final Connection connection;
+    private final List<Runnable> rollbackActions = new ArrayList<>();
+    private final List<Runnable> commitActions = new ArrayList<>();
+    private final List<Runnable> completionActions = new ArrayList<>();
+    private boolean rollbackOnly;
+    private boolean committed;
+
+    private UnitOfWork(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Runs work in a transaction and commits it, or rolls it back if the work throws
+     * or one of its statements failed.
+     * @param work the work to run
+     * @param <R> the type of the result
+     * @return the result of the work
+     * @throws IllegalStateException if no connection could be obtained or the transaction was rolled back
+     */
+    public static <R> R execute(Supplier<R> work) {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            try {
+                return work.get();
+            } catch (RuntimeException e) {
+                current.rollbackOnly = true;
+                throw e;
+            }
+        }
+        return begin(ConnectionFactory.getConnection(), false, work);
+    }
+
+    /**
+     * Runs reads in one read-only REPEATABLE READ transaction on a cursor connection, so that every query
+     * sees the same snapshot of the database, taken at its first read, and large tables can be streamed
+     * with {@link org.example.DataAccess.AbstractDAO#stream()}. Inside another unit of work the reads join
+     * the outer transaction and see what it sees.
+     * @param work the reads to run
+     * @param <R> the type of the result
+     * @return the result of the work
+     * @throws IllegalStateException if no connection could be obtained or the transaction failed
+     */
+    public static <R> R executeReadOnly(Supplier<R> work) {
+        if (CURRENT.get() != null) {
+            return execute(work);
+        }
+        return begin(ConnectionFactory.getCursorConnection(), true, work);
+    }
+
+    private static <R> R begin(Connection connection, boolean readOnly, Supplier<R> work) {
+        if (connection == null) {
+            throw new IllegalStateException("No database connection is available for the transaction");
+        }
+        UnitOfWork unit = new UnitOfWork(connection);
+        int isolation = Connection.TRANSACTION_NONE;
+        try {
+            if (readOnly) {
+                isolation = connection.getTransactionIsolation();
+                connection.setReadOnly(true);
+                connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            }
+            connection.setAutoCommit(false);
+            CURRENT.set(unit);
+            R result = work.get();
+            if (unit.rollbackOnly) {
+                throw new IllegalStateException("The transaction was rolled back because one of its statements failed");
+            }
+            connection.commit();
+            unit.committed = true;
+            return result;
+        } catch (SQLException e) {
+            unit.rollbackQuietly();
+            throw new IllegalStateException("The transaction could not be committed: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            unit.rollbackQuietly();
+            throw e;
+        } finally {
+            CURRENT.remove();
+            if (readOnly) {
+                unit.restore(isolation);
+            }
+            ConnectionFactory.close(connection);
+            if (unit.committed) {
+                runActions(unit.commitActions, "A commit action failed: ");
+            }
+            runActions(unit.completionActions, "A completion action failed: ");
+        }
+    }
+
+    /**
+     * Runs work without a result in a transaction.
+     * @param work the work to run
+     * @see #execute(Supplier)
+     */
+    public static void run(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return true if the current thread is inside a unit of work
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Marks the transaction of the current thread so that it is rolled back instead of committed.
+     * DAOs call this when a statement fails; it does nothing outside a unit of work.
+     */
+    public static void setRollbackOnly() {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            current.rollbackOnly = true;
+        }
+    }
+
+    /**
+     * Registers an action that undoes a change made outside the database, such as an in-memory reservation,
+     * if the transaction of the current thread is rolled back. Does nothing outside a unit of work.
+     * @param action the compensating action
+     * @return true if the action was registered
+     */
+    public static boolean onRollback(Runnable action) {
+        UnitOfWork current = CURRENT.get();
+        if (current == null) {
+            return false;
+        }
+        current.rollbackActions.add(action);
+        return true;
+    }
+
+    /**
+     * Registers an action that runs only if the transaction of the current thread is committed, for example
+     * to apply its changes to in-memory totals. Does nothing outside a unit of work.
+     * @param action the action to run after the commit
+     * @return true if the action was registered
+     */
+    public static boolean afterCommit(Runnable action) {
+        UnitOfWork current = CURRENT.get();
+        if (current == null) {
+            return false;
+        }
+        current.commitActions.add(action);
+        return true;
+    }
+
+    /**
+     * Registers an action that runs once the transaction of the current thread is committed or rolled back,
+     * for example to drop cached copies of the rows it changed. Does nothing outside a unit of work.
+     * @param action the action to run after the transaction
+     * @return true if the action was registered
+     */
+    public static boolean afterCompletion(Runnable action) {
+        UnitOfWork current = CURRENT.get();
+        if (current == null) {
+            return false;
+        }
+        current.completionActions.add(action);
+        return true;
+    }
+
+    /**
+     * @return the connection bound to the current thread, or null outside a unit of work
+     */
+    static Connection boundConnection() {
+        UnitOfWork current = CURRENT.get();
+        return current != null ? current.connection : null;
+    }
+
+    private static void runActions(List<Runnable> actions, String failure) {
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, failure + e.getMessage());
+            }
+        }
+    }
+
+    private void restore(int isolation) {
+        try {
+            connection.setAutoCommit(true);
+            connection.setReadOnly(false);
+            if (isolation != Connection.TRANSACTION_NONE) {
+                connection.setTransactionIsolation(isolation);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "An error occured while trying to reset the connection after a read-only transaction");
+        }
+    }
+
+    private void rollbackQuietly() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "An error occured while trying to roll back the transaction");
+        }
+        runActions(rollbackActions, "A rollback action failed: ");
+        rollbackActions.clear();
+    }
+}
@@ -1,14 +1,26 @@
 package org.example.DataAccess;
 
-import java.beans.IntrospectionException;
-import java.beans.PropertyDescriptor;
 import java.lang.reflect.*;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.example.Connection.ConnectionFactory;
+import org.example.Connection.UnitOfWork;
+import org.example.PrimitiveCollections.IntArrayList;
+import org.example.PrimitiveCollections.IntHashSet;
 
 /**
  * Class that contains the basic CRUD operations. (Create, Read, Update, Delete)
@@ -17,8 +29,28 @@ import org.example.Connection.ConnectionFactory;
 public class AbstractDAO<T>
 {
     protected static final Logger LOGGER = Logger.getLogger(org.example.DataAccess.AbstractDAO.class.getName());
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+
+    /**
+     * Number of rows sent in one JDBC batch by {@link #insertAll(List)}.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * Number of rows fetched in one round trip by {@link #stream()}.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * Maximum number of ids sent in one IN list by {@link #findByIds(Collection)}.
+     */
+    public static final int IN_CHUNK_SIZE = 500;
+
+    private static final Map<Class<?>, EntityCache<?>> CACHES = new ConcurrentHashMap<>();
 
     private final Class<T> type;
+    private final EntityMapper<T> mapper;
+    private final TableMetadata metadata;
 
     /**
      * Constructor that retrieves the class type parameter.
@@ -26,36 +58,47 @@ public class AbstractDAO<T>
     @SuppressWarnings("unchecked")
     public AbstractDAO() {
         this.type = (Class<T>) ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
+        this.mapper = EntityMapper.of(type);
+        this.metadata = TableMetadata.of(type);
     }
 
     /**
-     * Creates a SELECT query string based on a specified field.
+     * Returns the cached SELECT query string based on a specified field.
      * @param field the field to use in the WHERE clause
      * @return the SQL SELECT query as a string
      */
     private String createSelectQuery(String field) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("SELECT ");
-        sb.append(" * ");
-        sb.append(" FROM ");
-        sb.append(type.getSimpleName());
-        if (!field.equals("ALL")) {
-            sb.append(" WHERE ").append(field).append(" =?");
-        }
-        return sb.toString();
+        return metadata.selectQuery(field);
     }
 
     /**
-     * Retrieves all IDs from the table corresponding to the type T.
+     * Retrieves all IDs from the table corresponding to the type T, through the {@link QueryCache}.
+     * The ids are kept unboxed in one int array.
      * @param type the class type of the entity
      * @return a list of IDs
      */
-    public List<Integer> getIds(Class<T> type) {
-        List<Integer> ids = new ArrayList<>();
+    public IntArrayList getIds(Class<T> type) {
+        String query = metadata.selectIdsQuery();
+        List<IntArrayList> ids = QueryCache.getInstance().query(metadata.getTable(), query, List.of(), () -> {
+            IntArrayList loaded = loadIds(query);
+            return loaded != null ? List.of(loaded) : null;
+        }, IntArrayList::copy);
+        return ids != null ? ids.get(0) : new IntArrayList();
+    }
+
+    /**
+     * Retrieves all IDs of the table as a hash set, for repeated membership checks.
+     * @return the set of IDs
+     */
+    public IntHashSet getIdSet() {
+        return IntHashSet.of(getIds(type));
+    }
+
+    private IntArrayList loadIds(String query) {
+        IntArrayList ids = new IntArrayList();
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
-        String query = "SELECT id FROM " + type.getSimpleName();
         try {
             connection = ConnectionFactory.getConnection();
             statement = connection.prepareStatement(query);
@@ -65,6 +108,7 @@ public class AbstractDAO<T>
             }
         } catch (SQLException e) {
             LOGGER.log(Level.WARNING, type.getName() + "DAO:getIds " + e.getMessage());
+            return null;
         } finally {
             ConnectionFactory.close(resultSet);
             ConnectionFactory.close(statement);
@@ -75,64 +119,147 @@ public class AbstractDAO<T>
 
     /**
      * Retrieves all column names from the table corresponding to the type T.
+     * The names are read from the database once and cached for the life of the process.
      * @param type the class type of the entity
      * @return a list of column names
      */
     public List<String> getColumnNames(Class<T> type) {
-        List<String> columns = new ArrayList<>();
+        return new ArrayList<>(metadata.getColumns());
+    }
+
+    /**
+     * Retrieves all objects from the table corresponding to the type T, through the {@link QueryCache}.
+     * @return a list of objects, or null if the query failed
+     */
+    public List<T> findAll() {
+        String query = createSelectQuery("ALL");
+        return QueryCache.getInstance().query(metadata.getTable(), query, List.of(), () -> loadAll(query), mapper::copy);
+    }
+
+    private List<T> loadAll(String query) {
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
-        String query = createSelectQuery("ALL");
         try {
             connection = ConnectionFactory.getConnection();
             statement = connection.prepareStatement(query);
             resultSet = statement.executeQuery();
-            ResultSetMetaData rsmd = resultSet.getMetaData();
-            int count = rsmd.getColumnCount();
-            for (int i = 1; i <= count; i++) {
-                columns.add(rsmd.getColumnName(i));
-            }
+            return createObjects(resultSet);
         } catch (SQLException e) {
-            LOGGER.log(Level.WARNING, type.getName() + "DAO:getColumnNames " + e.getMessage());
+            LOGGER.log(Level.WARNING, type.getName() + "DAO:findAll " + e.getMessage());
         } finally {
             ConnectionFactory.close(resultSet);
             ConnectionFactory.close(statement);
             ConnectionFactory.close(connection);
         }
-        return columns;
+        return null;
     }
 
     /**
-     * Retrieves all objects from the table corresponding to the type T.
-     * @return a list of objects
+     * Streams all objects of the table with the default fetch size.
+     * @return a lazy stream of objects that must be closed
+     * @see #stream(int)
      */
-    public List<T> findAll() {
+    public Stream<T> stream() {
+        return stream(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Streams all objects of the table through a server-side cursor. Rows are fetched fetchSize at a time
+     * and mapped only when the stream reaches them, so memory use does not depend on the size of the table.
+     * The stream holds a connection from {@link ConnectionFactory#getCursorConnection()} until it is closed,
+     * so use it in a try-with-resources block. Inside a {@link UnitOfWork} it reads through the connection
+     * of the unit of work, which uses a cursor only if it was started with {@link UnitOfWork#executeReadOnly}.
+     * A query that fails, before or while the rows are read, throws instead of ending the stream early, so that
+     * a failed read is never mistaken for an empty table.
+     * @param fetchSize the number of rows fetched from the server in one round trip
+     * @return a lazy stream of objects that must be closed
+     * @throws IllegalStateException if the table could not be read
+     */
+    public Stream<T> stream(int fetchSize) {
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
         String query = createSelectQuery("ALL");
         try {
-            connection = ConnectionFactory.getConnection();
-            statement = connection.prepareStatement(query);
+            connection = ConnectionFactory.getCursorConnection();
+            if (connection == null) {
+                throw new SQLException("No database connection is available");
+            }
+            statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
             resultSet = statement.executeQuery();
-            return createObjects(resultSet);
+            EntityMapper.RowReader<T> reader = mapper.bind(resultSet.getMetaData());
+            ResultSet rows = resultSet;
+            Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!rows.next()) {
+                            return false;
+                        }
+                        action.accept(reader.read(rows));
+                        return true;
+                    } catch (SQLException e) {
+                        LOGGER.log(Level.WARNING, type.getName() + "DAO:stream " + e.getMessage());
+                        UnitOfWork.setRollbackOnly();
+                        throw new IllegalStateException("The " + type.getSimpleName() + " table could not be read: "
+                                + e.getMessage(), e);
+                    }
+                }
+            };
+            Connection streamConnection = connection;
+            PreparedStatement streamStatement = statement;
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                ConnectionFactory.close(rows);
+                ConnectionFactory.close(streamStatement);
+                ConnectionFactory.close(streamConnection);
+            });
         } catch (SQLException e) {
-            LOGGER.log(Level.WARNING, type.getName() + "DAO:findAll " + e.getMessage());
-        } finally {
+            LOGGER.log(Level.WARNING, type.getName() + "DAO:stream " + e.getMessage());
             ConnectionFactory.close(resultSet);
             ConnectionFactory.close(statement);
             ConnectionFactory.close(connection);
+            UnitOfWork.setRollbackOnly();
+            throw new IllegalStateException("The " + type.getSimpleName() + " table could not be read: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Passes every object of the table to an action, one row at a time, and releases the connection afterwards.
+     * @param action the action to run for every object
+     */
+    public void forEach(Consumer<? super T> action) {
+        try (Stream<T> rows = stream()) {
+            rows.forEach(action);
         }
-        return null;
     }
 
     /**
      * Retrieves an object by its ID from the table corresponding to the type T.
+     * When the cache of the type is enabled the object is read from the database only on a miss.
      * @param id the ID of the object
      * @return the object with the specified ID or null if not found
      */
     public T findById(int id) {
+        EntityCache<T> cache = getCache();
+        if (cache == null) {
+            return loadById(id);
+        }
+        T cached = cache.get(id);
+        if (cached != null) {
+            return mapper.copy(cached);
+        }
+        long generation = cache.generation();
+        T found = loadById(id);
+        if (found != null && !UnitOfWork.isActive()) {
+            cache.put(id, mapper.copy(found), generation);
+        }
+        return found;
+    }
+
+    private T loadById(int id) {
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
@@ -157,38 +284,139 @@ public class AbstractDAO<T>
     }
 
     /**
-     * Creates a list of objects from a ResultSet.
-     * @param resultSet the ResultSet containing the data
-     * @return a list of objects
+     * Retrieves the objects whose column equals a value, through the {@link QueryCache}.
+     * Put an index on the column (see {@link Schema}) so the lookup does not scan the table.
+     * @param column the column to compare
+     * @param value the value to look for, not null
+     * @return the matching objects, empty if none match or the query failed
+     * @throws IllegalArgumentException if the column does not exist in the table or the value is null
      */
-    private List<T> createObjects(ResultSet resultSet) {
-        List<T> list = new ArrayList<>();
-        Constructor[] ctors = type.getDeclaredConstructors();
-        Constructor ctor = null;
-        for (Constructor c : ctors) {
-            if (c.getGenericParameterTypes().length == 0) {
-                ctor = c;
-                break;
+    public List<T> findBy(String column, Object value) {
+        String name = metadata.column(column);
+        if (name == null) {
+            throw new IllegalArgumentException("The column " + column + " does not exist in " + metadata.getTable() + "!");
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("The value must not be null: " + name + " = NULL never matches a row!");
+        }
+        String query = createSelectQuery(name);
+        List<T> found = QueryCache.getInstance().query(metadata.getTable(), query, List.of(value), () -> loadBy(query, value), mapper::copy);
+        return found != null ? found : new ArrayList<>();
+    }
+
+    private List<T> loadBy(String query, Object value) {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = ConnectionFactory.getConnection();
+            statement = connection.prepareStatement(query);
+            statement.setObject(1, value);
+            resultSet = statement.executeQuery();
+            return mapper.readAll(resultSet);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, type.getName() + "DAO:findBy " + e.getMessage());
+        } finally {
+            ConnectionFactory.close(resultSet);
+            ConnectionFactory.close(statement);
+            ConnectionFactory.close(connection);
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves the objects with the given ids using chunked WHERE id IN (...) queries on one connection,
+     * instead of one query per id. Objects found in the cache of the type are not queried.
+     * @param ids the ids to look up, duplicates are ignored
+     * @return the found objects keyed by id; ids that do not exist are missing from the map.
+     * Null if a query failed, so that a partial result is never mistaken for missing rows
+     */
+    public Map<Integer, T> findByIds(Collection<Integer> ids) {
+        Map<Integer, T> found = new HashMap<>();
+        if (ids.isEmpty()) {
+            return found;
+        }
+        EntityCache<T> cache = getCache();
+        List<Integer> distinct = new ArrayList<>();
+        for (int id : new LinkedHashSet<>(ids)) {
+            T cached = cache != null ? cache.get(id) : null;
+            if (cached != null) {
+                found.put(id, mapper.copy(cached));
+            } else {
+                distinct.add(id);
             }
         }
+        long generation = cache != null ? cache.generation() : 0;
+        boolean store = cache != null && !UnitOfWork.isActive();
+        Connection connection = null;
         try {
-            while (resultSet.next()) {
-                assert ctor != null;
-                ctor.setAccessible(true);
-                T instance = (T) ctor.newInstance();
-                for (Field field : type.getDeclaredFields()) {
-                    String fieldName = field.getName();
-                    Object value = resultSet.getObject(fieldName);
-                    PropertyDescriptor propertyDescriptor = new PropertyDescriptor(fieldName, type);
-                    Method method = propertyDescriptor.getWriteMethod();
-                    method.invoke(instance, value);
+            connection = ConnectionFactory.getConnection();
+            for (int start = 0; start < distinct.size(); start += IN_CHUNK_SIZE) {
+                int end = Math.min(start + IN_CHUNK_SIZE, distinct.size());
+                try (PreparedStatement statement = connection.prepareStatement(metadata.selectInQuery(end - start))) {
+                    for (int i = start; i < end; i++) {
+                        statement.setInt(i - start + 1, distinct.get(i));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        for (T t : createObjects(resultSet)) {
+                            found.put(mapper.idOf(t), t);
+                            if (store) {
+                                cache.put(mapper.idOf(t), mapper.copy(t), generation);
+                            }
+                        }
+                    }
                 }
-                list.add(instance);
             }
-        } catch (InstantiationException | IllegalAccessException | SQLException | IntrospectionException | InvocationTargetException e) {
-            e.printStackTrace();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, type.getName() + "DAO:findByIds " + e.getMessage());
+            return null;
+        } finally {
+            ConnectionFactory.close(connection);
+        }
+        return found;
+    }
+
+    /**
+     * Retrieves one page of objects ordered by id, using keyset pagination.
+     * The cost of a page does not depend on how deep into the table it is.
+     * @param afterId the last id of the previous page, or 0 for the first page
+     * @param limit the maximum number of objects in the page
+     * @return the objects with an id greater than afterId, at most limit of them
+     */
+    public List<T> findPage(int afterId, int limit) {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        String query = metadata.selectPageQuery();
+        try {
+            connection = ConnectionFactory.getConnection();
+            statement = connection.prepareStatement(query);
+            statement.setInt(1, afterId);
+            statement.setInt(2, limit);
+            resultSet = statement.executeQuery();
+            return createObjects(resultSet);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, type.getName() + "DAO:findPage " + e.getMessage());
+        } finally {
+            ConnectionFactory.close(resultSet);
+            ConnectionFactory.close(statement);
+            ConnectionFactory.close(connection);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Creates a list of objects from a ResultSet using the precompiled mapper of the type.
+     * @param resultSet the ResultSet containing the data
+     * @return a list of objects
+     */
+    private List<T> createObjects(ResultSet resultSet) {
+        try {
+            return mapper.readAll(resultSet);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, type.getName() + "DAO:createObjects " + e.getMessage());
         }
-        return list;
+        return new ArrayList<>();
     }
 
 
@@ -198,58 +426,33 @@ public class AbstractDAO<T>
      * @return the SQL INSERT query as a StringBuilder
      */
     public StringBuilder insertQuery() {
-        List<String> columns = getColumnNames(type);
-        StringBuilder sb = new StringBuilder();
-        sb.append("INSERT INTO ").append(type.getSimpleName()).append(" (");
-        for (int i = 0; i < columns.size(); i++) {
-            if (i == columns.size() - 1) {
-                sb.append(columns.get(i)).append(") VALUES (");
-            } else {
-                sb.append(columns.get(i)).append(",");
-            }
-        }
-        for (int i = 0; i < columns.size(); i++) {
-            if (i == columns.size() - 1) {
-                sb.append("?)");
-            } else {
-                sb.append("?,");
-            }
-        }
-        return sb;
+        return new StringBuilder(metadata.insertQuery());
     }
 
     /**
      * Inserts an object into the table corresponding to the type T.
+     * Duplicate ids are rejected by the primary key of the table, not by reading the existing ids.
      * @param t the object to insert
      * @return the inserted object
+     * @throws IllegalArgumentException if a row with the same id already exists
      */
     public T insert(T t) {
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
-        String query = insertQuery().toString();
+        String query = metadata.insertQuery();
         try {
             connection = ConnectionFactory.getConnection();
             statement = connection.prepareStatement(query);
-            List<Integer> ids = getIds(type);
-            int i = 1;
-            for (Field field : type.getDeclaredFields()) {
-                field.setAccessible(true);
-                statement.setObject(i, field.get(t));
-                if (field.getName().equals("id")) {
-                    for (int idz : ids) {
-                        if (idz == (int) field.get(t)) {
-                            throw new IllegalArgumentException("The id is already in the database!");
-                        }
-                    }
-                }
-                i++;
-            }
+            mapper.binder(metadata.getColumns()).bind(statement, t, 1);
             statement.executeUpdate();
+            invalidate(mapper.idOf(t));
         } catch (SQLException e) {
+            if (isDuplicateKey(e)) {
+                throw new IllegalArgumentException("The id is already in the database!");
+            }
             LOGGER.log(Level.WARNING, type.getName() + "DAO:insert " + e.getMessage());
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
+            UnitOfWork.setRollbackOnly();
         } finally {
             ConnectionFactory.close(resultSet);
             ConnectionFactory.close(statement);
@@ -258,17 +461,129 @@ public class AbstractDAO<T>
         return t;
     }
 
+    /**
+     * Inserts a list of objects in chunks of {@link #DEFAULT_BATCH_SIZE} rows.
+     * @param list the objects to insert
+     * @return the inserted objects and the rejected rows
+     */
+    public BatchResult<T> insertAll(List<T> list) {
+        return insertAll(list, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Inserts a list of objects with JDBC batching, on one connection and in one transaction.
+     * Inside a {@link UnitOfWork} the rows join its transaction and are committed with it.
+     * A chunk rejected by the database is replayed row by row, so a bad row only fails itself.
+     * @param list the objects to insert
+     * @param batchSize the number of rows sent to the database in one batch
+     * @return the inserted objects and the rejected rows, keyed by their position in the list
+     * @throws IllegalArgumentException if batchSize is not positive
+     */
+    public BatchResult<T> insertAll(List<T> list, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive!");
+        }
+        BatchResult<T> result = new BatchResult<>();
+        if (list.isEmpty()) {
+            return result;
+        }
+        Connection connection = null;
+        PreparedStatement statement = null;
+        String[] errors = new String[list.size()];
+        boolean ownTransaction = !UnitOfWork.isActive();
+        try {
+            connection = ConnectionFactory.getConnection();
+            if (ownTransaction) {
+                connection.setAutoCommit(false);
+            }
+            statement = connection.prepareStatement(metadata.insertQuery());
+            EntityMapper.ParameterBinder<T> binder = mapper.binder(metadata.getColumns());
+            for (int start = 0; start < list.size(); start += batchSize) {
+                int end = Math.min(start + batchSize, list.size());
+                for (int i = start; i < end; i++) {
+                    binder.bind(statement, list.get(i), 1);
+                    statement.addBatch();
+                }
+                executeChunk(statement, binder, list, start, end, errors);
+            }
+            if (ownTransaction) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, type.getName() + "DAO:insertAll " + e.getMessage());
+            if (ownTransaction) {
+                rollback(connection);
+            } else {
+                UnitOfWork.setRollbackOnly();
+            }
+            for (int i = 0; i < list.size(); i++) {
+                result.addFailure(i, e.getMessage());
+            }
+            return result;
+        } finally {
+            ConnectionFactory.close(statement);
+            ConnectionFactory.close(connection);
+        }
+        for (int i = 0; i < list.size(); i++) {
+            if (errors[i] == null) {
+                result.addInserted(list.get(i));
+                invalidate(mapper.idOf(list.get(i)));
+            } else {
+                result.addFailure(i, errors[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Executes one batched chunk. When the batch fails, the rows the driver did not report as written
+     * are executed again one by one to find out which of them are invalid.
+     */
+    private void executeChunk(PreparedStatement statement, EntityMapper.ParameterBinder<T> binder, List<T> list,
+                              int start, int end, String[] errors) throws SQLException {
+        int[] counts;
+        try {
+            statement.executeBatch();
+            return;
+        } catch (BatchUpdateException e) {
+            counts = e.getUpdateCounts();
+        }
+        statement.clearBatch();
+        for (int i = start; i < end; i++) {
+            int k = i - start;
+            if (k < counts.length && counts[k] != Statement.EXECUTE_FAILED) {
+                continue;
+            }
+            try {
+                binder.bind(statement, list.get(i), 1);
+                statement.executeUpdate();
+            } catch (SQLException e) {
+                errors[i] = isDuplicateKey(e) ? "The id is already in the database!" : e.getMessage();
+            }
+        }
+    }
+
+    /**
+     * Rolls back the current transaction of a connection, logging failures.
+     * @param connection the connection, may be null
+     */
+    protected void rollback(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, type.getName() + "DAO:rollback " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * Builds the SQL UPDATE query string.
      * @param column the column to update
      * @return the SQL UPDATE query as a StringBuilder
      */
     public StringBuilder updateQuery(String column) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("UPDATE ").append(type.getSimpleName()).append(" SET ");
-        sb.append(column).append(" = ? ");
-        sb.append("WHERE id = ?");
-        return sb;
+        return new StringBuilder(metadata.updateQuery(column));
     }
 
     /**
@@ -279,48 +594,209 @@ public class AbstractDAO<T>
      * @return the updated object
      */
     public T  update(String column, Object value, int id ) {
+        return update(id, Collections.singletonMap(column, value));
+    }
+
+    /**
+     * Updates several columns of an object with one statement and reads the row back.
+     * @param id the ID of the object to update
+     * @param changes the new value of every changed column
+     * @return the updated object
+     */
+    public T update(int id, Map<String, Object> changes) {
+        return update(id, changes, true);
+    }
+
+    /**
+     * Updates several columns of an object with a single UPDATE statement.
+     * @param id the ID of the object to update
+     * @param changes the new value of every changed column
+     * @param reload whether to read the updated row back
+     * @return the updated object, or null if reload is false
+     * @throws IllegalArgumentException if a changed column does not exist in the table
+     */
+    public T update(int id, Map<String, Object> changes, boolean reload) {
+        List<String> columns = new ArrayList<>(changes.size());
+        List<Object> values = new ArrayList<>(changes.size());
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            String column = metadata.column(change.getKey());
+            if (column == null) {
+                throw new IllegalArgumentException("The column " + change.getKey() + " does not exist in " + metadata.getTable() + "!");
+            }
+            columns.add(column);
+            values.add(change.getValue());
+        }
+        if (!columns.isEmpty()) {
+            Connection connection = null;
+            PreparedStatement statement = null;
+            String query = metadata.updateQuery(columns);
+            try {
+                connection = ConnectionFactory.getConnection();
+                statement = connection.prepareStatement(query);
+                int index = 1;
+                for (Object value : values) {
+                    statement.setObject(index++, value);
+                }
+                statement.setInt(index, id);
+                statement.executeUpdate();
+                invalidate(id);
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, type.getName() + "DAO:UPDATE " + e.getMessage());
+                UnitOfWork.setRollbackOnly();
+            } finally {
+                ConnectionFactory.close(statement);
+                ConnectionFactory.close(connection);
+            }
+        }
+        return reload ? findById(id) : null;
+    }
+
+    /**
+     * Delete an object by id by executing DELETE FROM table name WHERE id = ? and setting the id with the value
+     * given by the user
+     * @param id
+     */
+    public void delete(int id) {
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
-        String query =updateQuery(column).toString();
+        String query = metadata.deleteQuery();
         try {
             connection = ConnectionFactory.getConnection();
             statement = connection.prepareStatement(query);
-            statement.setObject(1, value);
-            statement.setObject(2, id);
+            statement.setInt(1, id);
             statement.executeUpdate();
+            invalidate(id);
         } catch (SQLException e) {
-            LOGGER.log(Level.WARNING, type.getName() + "DAO:UPDATE " + e.getMessage());
+            LOGGER.log(Level.WARNING, type.getName() + "DAO:DELETE " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
         } finally {
             ConnectionFactory.close(resultSet);
             ConnectionFactory.close(statement);
             ConnectionFactory.close(connection);
         }
-        T t=findById(id);
-        return t;
     }
 
     /**
-     * Delete an object by id by executing DELETE FROM table name WHERE id = ? and setting the id with the value
-     * given by the user
-     * @param id
+     * Enables a read-through cache for findById and findByIds, shared by every DAO of the type.
+     * Inserts, updates and deletes through the DAO drop the changed objects from it, again when the
+     * surrounding {@link UnitOfWork} ends, and reads inside a unit of work never fill it.
+     * @param maxSize the maximum number of cached objects; the least recently used are evicted first
+     * @param ttlMillis how long an object stays cached after it was read
      */
-    public void delete(int id) {
+    public void enableCache(int maxSize, long ttlMillis) {
+        CACHES.put(type, new EntityCache<T>(maxSize, ttlMillis));
+    }
+
+    /**
+     * Disables the cache of the type.
+     */
+    public void disableCache() {
+        CACHES.remove(type);
+    }
+
+    /**
+     * @return the cache of the type with its hit, miss and eviction counters, or null if it is disabled
+     */
+    @SuppressWarnings("unchecked")
+    public EntityCache<T> getCache() {
+        return (EntityCache<T>) CACHES.get(type);
+    }
+
+    /**
+     * Drops an object that a statement changed from the cache of the type, and the cached query results of its table.
+     * Subclasses call this after statements of their own that change a known row.
+     * @param id the id of the changed object
+     */
+    protected void invalidate(int id) {
+        QueryCache.getInstance().tableChanged(metadata.getTable());
+        EntityCache<T> cache = getCache();
+        if (cache != null) {
+            cache.invalidate(id);
+            UnitOfWork.afterCompletion(() -> cache.invalidate(id));
+        }
+    }
+
+    /**
+     * Empties the cache of the type and the cached query results of its table,
+     * after statements that change an unknown set of rows.
+     */
+    protected void invalidateAll() {
+        QueryCache.getInstance().tableChanged(metadata.getTable());
+        EntityCache<T> cache = getCache();
+        if (cache != null) {
+            cache.invalidateAll();
+            UnitOfWork.afterCompletion(cache::invalidateAll);
+        }
+    }
+
+    /**
+     * Executes a data-changing statement with positional parameters.
+     * Cached query results of the table are dropped; rows of the entity cache are left to the caller.
+     * @param query the SQL statement
+     * @param parameters the values of its parameters, in order
+     * @return the number of affected rows, or 0 if the statement failed
+     */
+    protected int executeUpdate(String query, Object... parameters) {
         Connection connection = null;
         PreparedStatement statement = null;
-        ResultSet resultSet = null;
-        String query = "DELETE FROM " + type.getSimpleName() + " WHERE id = " +id;
         try {
             connection = ConnectionFactory.getConnection();
             statement = connection.prepareStatement(query);
-            statement.executeUpdate();
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, type.getName() + "DAO:executeUpdate " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
+        } finally {
+            QueryCache.getInstance().tableChanged(metadata.getTable());
+            ConnectionFactory.close(statement);
+            ConnectionFactory.close(connection);
+        }
+        return 0;
+    }
 
+    /**
+     * Executes a data-changing statement once per parameter row with one JDBC batch.
+     * @param query the SQL statement
+     * @param parameters the parameter values of every execution
+     * @return the number of rows affected by every execution, or null if the batch failed
+     */
+    protected int[] executeBatch(String query, List<Object[]> parameters) {
+        if (parameters.isEmpty()) {
+            return new int[0];
+        }
+        Connection connection = null;
+        PreparedStatement statement = null;
+        try {
+            connection = ConnectionFactory.getConnection();
+            statement = connection.prepareStatement(query);
+            for (Object[] row : parameters) {
+                for (int i = 0; i < row.length; i++) {
+                    statement.setObject(i + 1, row[i]);
+                }
+                statement.addBatch();
+            }
+            return statement.executeBatch();
         } catch (SQLException e) {
-            LOGGER.log(Level.WARNING, type.getName() + "DAO:DELETE " + e.getMessage());
+            LOGGER.log(Level.WARNING, type.getName() + "DAO:executeBatch " + e.getMessage());
+            UnitOfWork.setRollbackOnly();
         } finally {
-            ConnectionFactory.close(resultSet);
+            QueryCache.getInstance().tableChanged(metadata.getTable());
             ConnectionFactory.close(statement);
             ConnectionFactory.close(connection);
         }
+        return null;
+    }
+
+    /**
+     * Checks whether an exception reports a duplicate primary or unique key.
+     * @param e the exception thrown by the driver
+     * @return true for MySQL error ER_DUP_ENTRY or the standard unique violation state
+     */
+    protected static boolean isDuplicateKey(SQLException e) {
+        return e.getErrorCode() == MYSQL_DUPLICATE_ENTRY || "23505".equals(e.getSQLState());
     }
 }
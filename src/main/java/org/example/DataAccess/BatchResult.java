@@ -0,0 +1,75 @@
+package org.example.DataAccess;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The outcome of a bulk operation: the rows that were written and, for every rejected row,
+ * its position in the submitted list together with the reason.
+ * @param <T> the type of the entity
+ */
+public class BatchResult<T> {
+    private final List<T> inserted = new ArrayList<>();
+    private final Map<Integer, String> failures = new TreeMap<>();
+
+    /**
+     * Records a row that was written.
+     * @param t the written row
+     */
+    public void addInserted(T t) {
+        inserted.add(t);
+    }
+
+    /**
+     * Records a rejected row.
+     * @param row the position of the row in the submitted list
+     * @param reason why the row was rejected
+     */
+    public void addFailure(int row, String reason) {
+        failures.put(row, reason);
+    }
+
+    /**
+     * Adds the outcome of a bulk operation that ran on a subset of the submitted list.
+     * @param other the outcome of the subset
+     * @param rows the position in the submitted list of every row of the subset
+     */
+    public void merge(BatchResult<T> other, List<Integer> rows) {
+        inserted.addAll(other.inserted);
+        for (Map.Entry<Integer, String> failure : other.failures.entrySet()) {
+            failures.put(rows.get(failure.getKey()), failure.getValue());
+        }
+    }
+
+    /**
+     * @return the written rows, in submission order
+     */
+    public List<T> getInserted() {
+        return Collections.unmodifiableList(inserted);
+    }
+
+    /**
+     * @return the reason of every rejected row, keyed by its position in the submitted list
+     */
+    public Map<Integer, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * @return true if at least one row was rejected
+     */
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "inserted=" + inserted.size() +
+                ", failures=" + failures +
+                '}';
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.DataAccess;
+
+import org.example.Model.Bill;
+
+import java.util.List;
+
+public class BillDAO extends AbstractDAO <Bill>{
+
+    /**
+     * Finds the bill of an order through the index on Bill.idOrder.
+     * @param idOrder the ID of the order
+     * @return the bill of the order, or null if it has none
+     */
+    public Bill findByIdOrder(int idOrder) {
+        List<Bill> bills = findBy("idOrder", idOrder);
+        return bills.isEmpty() ? null : bills.get(0);
+    }
+}
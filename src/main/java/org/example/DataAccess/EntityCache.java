@@ -0,0 +1,144 @@
+package org.example.DataAccess;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded read-through cache of the objects of one entity type, keyed by id.
+ * Entries are evicted least recently used first once the cache is full, and expire after a fixed time
+ * so that rows changed outside the application are eventually read again.
+ * Every invalidation increases a generation number; a value read from the database is only stored if
+ * no invalidation happened since the read started, so a slow reader cannot put back a stale row.
+ * @param <T> the type of the entity
+ */
+public final class EntityCache<T> {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<Integer, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long generation;
+
+    /**
+     * @param maxSize the maximum number of cached objects
+     * @param ttlMillis how long an object stays cached after it was read
+     */
+    EntityCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("The size and the time to live of a cache must be positive!");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * @param id the id of the object
+     * @return the cached object, or null if it is not cached or expired
+     */
+    synchronized T get(int id) {
+        Entry<T> entry = entries.get(id);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt > 0) {
+            entries.remove(id);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * @return the generation to pass to put for a value read from the database from now on
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores an object read from the database, unless the cache was invalidated since the read started.
+     * @param id the id of the object
+     * @param value the object
+     * @param readGeneration the generation returned before the read
+     */
+    synchronized void put(int id, T value, long readGeneration) {
+        if (readGeneration != generation) {
+            return;
+        }
+        entries.put(id, new Entry<>(value, System.nanoTime() + ttlNanos));
+        if (entries.size() > maxSize) {
+            Iterator<Map.Entry<Integer, Entry<T>>> eldest = entries.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Removes the object with an id.
+     * @param id the id of the changed object
+     */
+    synchronized void invalidate(int id) {
+        generation++;
+        entries.remove(id);
+    }
+
+    /**
+     * Removes every object, after a statement that changed an unknown set of rows.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that had to read the database
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of objects removed because the cache was full or they expired
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of cached objects
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "EntityCache{size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses()
+                + ", evictions=" + getEvictions() + "}";
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final long expiresAt;
+
+        private Entry(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
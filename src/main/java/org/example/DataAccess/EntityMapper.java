@@ -0,0 +1,547 @@
+package org.example.DataAccess;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Maps the rows of a ResultSet to objects of one entity type.
+ * The constructor, the setters and the getters are resolved once per type and turned into lambdas,
+ * so mapping a row or binding an object to a statement does not go through reflection.
+ * Records are built by passing the columns of a row straight to their canonical constructor
+ * and read through their component accessors.
+ * @param <T> the type of the entity
+ */
+final class EntityMapper<T> {
+
+    private static final ClassValue<EntityMapper<?>> MAPPERS = new ClassValue<>() {
+        @Override
+        protected EntityMapper<?> computeValue(Class<?> type) {
+            return new EntityMapper<>(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final Supplier<T> constructor;
+    private final MethodHandle canonical;
+    private final List<Property<T>> properties = new ArrayList<>();
+    private final Map<List<String>, ParameterBinder<T>> binders = new ConcurrentHashMap<>();
+    private final List<MethodHandle> copiers = new ArrayList<>();
+    private ToIntFunction<T> id;
+
+    /**
+     * Returns the mapper of a type, building it the first time the type is used.
+     * @param type the class of the entity
+     * @return the shared mapper of the type
+     */
+    @SuppressWarnings("unchecked")
+    static <T> EntityMapper<T> of(Class<T> type) {
+        return (EntityMapper<T>) MAPPERS.get(type);
+    }
+
+    private EntityMapper(Class<T> type) {
+        this.type = type;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            if (type.isRecord()) {
+                this.constructor = null;
+                this.canonical = canonicalOf(lookup, type);
+                for (RecordComponent component : type.getRecordComponents()) {
+                    Field field = type.getDeclaredField(component.getName());
+                    properties.add(new Property<>(field.getName(), componentReaderOf(field.getType()),
+                            writerOf(lookup, type, field, field.getName())));
+                    if (field.getName().equals("id") && field.getType() == int.class) {
+                        id = idOf(lookup, type, field, "id");
+                    }
+                }
+                return;
+            }
+            this.constructor = constructorOf(lookup, type);
+            this.canonical = null;
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                properties.add(new Property<>(field.getName(), readerOf(lookup, type, field), writerOf(lookup, type, field, beanGetterName(field))));
+                copiers.add(MethodHandles.filterArguments(lookup.unreflectSetter(field), 1, lookup.unreflectGetter(field))
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class)));
+                if (field.getName().equals("id") && field.getType() == int.class) {
+                    id = idOf(lookup, type, field, "getId");
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot map rows to " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Resolves the column of every property once for the layout of a result set.
+     * @param metaData the metadata of the result set
+     * @return a reader that maps the rows of result sets with this layout
+     * @throws SQLException if the metadata cannot be read
+     */
+    RowReader<T> bind(ResultSetMetaData metaData) throws SQLException {
+        int[] columns = new int[properties.size()];
+        int count = metaData.getColumnCount();
+        for (int p = 0; p < columns.length; p++) {
+            columns[p] = -1;
+            String name = properties.get(p).name;
+            for (int c = 1; c <= count; c++) {
+                if (name.equalsIgnoreCase(metaData.getColumnLabel(c))) {
+                    columns[p] = c;
+                    break;
+                }
+            }
+        }
+        return new RowReader<>(this, columns);
+    }
+
+    /**
+     * Maps every remaining row of a result set.
+     * @param resultSet the result set to read
+     * @return the mapped objects
+     * @throws SQLException if a row cannot be read
+     */
+    List<T> readAll(ResultSet resultSet) throws SQLException {
+        List<T> list = new ArrayList<>();
+        RowReader<T> reader = bind(resultSet.getMetaData());
+        while (resultSet.next()) {
+            list.add(reader.read(resultSet));
+        }
+        return list;
+    }
+
+    /**
+     * Resolves the property written to every column of a statement once per column list.
+     * @param columns the columns of the statement, in parameter order
+     * @return a binder that sets the parameters of the statement from an object
+     */
+    ParameterBinder<T> binder(List<String> columns) {
+        return binders.computeIfAbsent(List.copyOf(columns), this::createBinder);
+    }
+
+    private ParameterBinder<T> createBinder(List<String> columns) {
+        List<ColumnWriter<T>> writers = new ArrayList<>();
+        for (String column : columns) {
+            Property<T> property = property(column);
+            writers.add(property != null ? property.writer : (source, statement, index) -> statement.setObject(index, null));
+        }
+        return new ParameterBinder<>(writers);
+    }
+
+    /**
+     * Copies an object field by field, so a cached object can be handed out without being shared.
+     * Records are immutable and returned as they are.
+     * @param source the object to copy
+     * @return a new object with the same field values
+     */
+    T copy(T source) {
+        if (canonical != null) {
+            return source;
+        }
+        T copy = constructor.get();
+        try {
+            for (MethodHandle copier : copiers) {
+                copier.invokeExact((Object) copy, (Object) source);
+            }
+        } catch (Throwable t) {
+            throw new IllegalStateException("Cannot copy " + type.getName(), t);
+        }
+        return copy;
+    }
+
+    /**
+     * Reads the primary key of an object.
+     * @param source the object to read
+     * @return the value of its int id property
+     */
+    int idOf(T source) {
+        if (id == null) {
+            throw new IllegalStateException(type.getName() + " has no int id property");
+        }
+        return id.applyAsInt(source);
+    }
+
+    Class<T> getType() {
+        return type;
+    }
+
+    private Property<T> property(String name) {
+        for (Property<T> property : properties) {
+            if (property.name.equalsIgnoreCase(name)) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps rows of result sets that share one column layout.
+     * @param <T> the type of the entity
+     */
+    static final class RowReader<T> {
+        private final EntityMapper<T> mapper;
+        private final int[] columns;
+
+        private RowReader(EntityMapper<T> mapper, int[] columns) {
+            this.mapper = mapper;
+            this.columns = columns;
+        }
+
+        /**
+         * Maps the current row of a result set.
+         * @param resultSet the result set positioned on a row
+         * @return the mapped object
+         * @throws SQLException if a column cannot be read
+         */
+        T read(ResultSet resultSet) throws SQLException {
+            List<Property<T>> properties = mapper.properties;
+            if (mapper.canonical != null) {
+                return construct(resultSet, properties);
+            }
+            T instance = mapper.constructor.get();
+            for (int p = 0; p < columns.length; p++) {
+                if (columns[p] > 0) {
+                    properties.get(p).reader.read(instance, resultSet, columns[p]);
+                }
+            }
+            return instance;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T construct(ResultSet resultSet, List<Property<T>> properties) throws SQLException {
+            Object[] arguments = new Object[columns.length];
+            for (int p = 0; p < columns.length; p++) {
+                Property<T> property = properties.get(p);
+                arguments[p] = columns[p] > 0 ? property.value.read(resultSet, columns[p]) : property.defaultValue;
+            }
+            try {
+                return (T) mapper.canonical.invokeExact(arguments);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Cannot create " + mapper.type.getName(), t);
+            }
+        }
+    }
+
+    /**
+     * Sets the parameters of a statement from the properties of an object.
+     * @param <T> the type of the entity
+     */
+    static final class ParameterBinder<T> {
+        private final List<ColumnWriter<T>> writers;
+
+        private ParameterBinder(List<ColumnWriter<T>> writers) {
+            this.writers = writers;
+        }
+
+        /**
+         * Binds the properties of an object starting at a parameter index.
+         * @param statement the statement to fill
+         * @param source the object to read
+         * @param firstIndex the index of the first parameter
+         * @return the index following the last bound parameter
+         * @throws SQLException if a parameter cannot be set
+         */
+        int bind(PreparedStatement statement, T source, int firstIndex) throws SQLException {
+            int index = firstIndex;
+            for (ColumnWriter<T> writer : writers) {
+                writer.write(source, statement, index++);
+            }
+            return index;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ColumnReader<T> {
+        void read(T target, ResultSet resultSet, int column) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface ValueReader {
+        Object read(ResultSet resultSet, int column) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface ColumnWriter<T> {
+        void write(T source, PreparedStatement statement, int index) throws SQLException;
+    }
+
+    private static final class Property<T> {
+        private final String name;
+        private final ColumnReader<T> reader;
+        private final ValueReader value;
+        private final Object defaultValue;
+        private final ColumnWriter<T> writer;
+
+        private Property(String name, ColumnReader<T> reader, ColumnWriter<T> writer) {
+            this.name = name;
+            this.reader = reader;
+            this.value = null;
+            this.defaultValue = null;
+            this.writer = writer;
+        }
+
+        /**
+         * A record component, read as a constructor argument; defaultValue is passed when its column is missing.
+         */
+        private Property(String name, ComponentReader component, ColumnWriter<T> writer) {
+            this.name = name;
+            this.reader = null;
+            this.value = component.reader();
+            this.defaultValue = component.defaultValue();
+            this.writer = writer;
+        }
+    }
+
+    /**
+     * Reads the value of a record component from a column, with the value used when the column is missing.
+     */
+    private record ComponentReader(ValueReader reader, Object defaultValue) {
+    }
+
+    /**
+     * Builds a handle that takes the values of all record components as one array and returns the new record.
+     */
+    private static MethodHandle canonicalOf(MethodHandles.Lookup lookup, Class<?> type) throws ReflectiveOperationException {
+        RecordComponent[] components = type.getRecordComponents();
+        Class<?>[] parameterTypes = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            parameterTypes[i] = components[i].getType();
+        }
+        return lookup.findConstructor(type, MethodType.methodType(void.class, parameterTypes))
+                .asSpreader(Object[].class, components.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    private static ComponentReader componentReaderOf(Class<?> fieldType) {
+        if (fieldType == int.class) {
+            return new ComponentReader(ResultSet::getInt, 0);
+        } else if (fieldType == long.class) {
+            return new ComponentReader(ResultSet::getLong, 0L);
+        } else if (fieldType == double.class) {
+            return new ComponentReader(ResultSet::getDouble, 0.0);
+        } else if (fieldType == boolean.class) {
+            return new ComponentReader(ResultSet::getBoolean, false);
+        } else if (fieldType == String.class) {
+            return new ComponentReader(ResultSet::getString, null);
+        }
+        Class<?> boxed = MethodType.methodType(fieldType).wrap().returnType();
+        return new ComponentReader((rs, column) -> rs.getObject(column, boxed), null);
+    }
+
+    private static String beanGetterName(Field field) {
+        String name = field.getName();
+        return (field.getType() == boolean.class ? "is" : "get") + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> constructorOf(MethodHandles.Lookup lookup, Class<T> type) throws ReflectiveOperationException {
+        MethodHandle handle = lookup.findConstructor(type, MethodType.methodType(void.class));
+        try {
+            return (Supplier<T>) LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), handle, MethodType.methodType(type)).getTarget().invoke();
+        } catch (Throwable e) {
+            MethodHandle generic = handle.asType(MethodType.methodType(Object.class));
+            return () -> {
+                try {
+                    return (T) generic.invokeExact();
+                } catch (Throwable t) {
+                    throw new IllegalStateException("Cannot create " + type.getName(), t);
+                }
+            };
+        }
+    }
+
+    /**
+     * Builds the column reader of a field. The setter is preferred and compiled to a lambda
+     * taking the primitive value directly; fields without a setter are written through a field handle.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> ColumnReader<T> readerOf(MethodHandles.Lookup lookup, Class<T> type, Field field) throws ReflectiveOperationException {
+        Class<?> fieldType = field.getType();
+        String name = field.getName();
+        String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        MethodHandle setter;
+        try {
+            setter = lookup.findVirtual(type, setterName, MethodType.methodType(void.class, fieldType));
+            Object lambda = setterLambda(lookup, type, fieldType, setter);
+            if (fieldType == int.class) {
+                ObjIntConsumer<T> set = (ObjIntConsumer<T>) lambda;
+                return (target, rs, column) -> set.accept(target, rs.getInt(column));
+            } else if (fieldType == long.class) {
+                ObjLongConsumer<T> set = (ObjLongConsumer<T>) lambda;
+                return (target, rs, column) -> set.accept(target, rs.getLong(column));
+            } else if (fieldType == double.class) {
+                ObjDoubleConsumer<T> set = (ObjDoubleConsumer<T>) lambda;
+                return (target, rs, column) -> set.accept(target, rs.getDouble(column));
+            } else if (fieldType == String.class) {
+                BiConsumer<T, Object> set = (BiConsumer<T, Object>) lambda;
+                return (target, rs, column) -> set.accept(target, rs.getString(column));
+            }
+            BiConsumer<T, Object> set = (BiConsumer<T, Object>) lambda;
+            Class<?> boxed = MethodType.methodType(fieldType).wrap().returnType();
+            return (target, rs, column) -> set.accept(target, rs.getObject(column, boxed));
+        } catch (NoSuchMethodException | IllegalAccessException | LambdaFailure e) {
+            setter = lookup.unreflectSetter(field);
+        }
+        MethodHandle generic = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        Class<?> boxed = MethodType.methodType(fieldType).wrap().returnType();
+        return (target, rs, column) -> {
+            try {
+                generic.invokeExact((Object) target, rs.getObject(column, boxed));
+            } catch (SQLException | RuntimeException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Cannot set " + name + " on " + type.getName(), t);
+            }
+        };
+    }
+
+    /**
+     * Builds the statement writer of a field from its getter or record accessor, falling back to a field handle.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> ColumnWriter<T> writerOf(MethodHandles.Lookup lookup, Class<T> type, Field field, String getterName) throws ReflectiveOperationException {
+        Class<?> fieldType = field.getType();
+        String name = field.getName();
+        MethodHandle getter;
+        try {
+            getter = lookup.findVirtual(type, getterName, MethodType.methodType(fieldType));
+            Object lambda = getterLambda(lookup, type, fieldType, getter);
+            if (fieldType == int.class) {
+                ToIntFunction<T> get = (ToIntFunction<T>) lambda;
+                return (source, statement, index) -> statement.setInt(index, get.applyAsInt(source));
+            } else if (fieldType == long.class) {
+                ToLongFunction<T> get = (ToLongFunction<T>) lambda;
+                return (source, statement, index) -> statement.setLong(index, get.applyAsLong(source));
+            } else if (fieldType == double.class) {
+                ToDoubleFunction<T> get = (ToDoubleFunction<T>) lambda;
+                return (source, statement, index) -> statement.setDouble(index, get.applyAsDouble(source));
+            } else if (fieldType == String.class) {
+                Function<T, Object> get = (Function<T, Object>) lambda;
+                return (source, statement, index) -> statement.setString(index, (String) get.apply(source));
+            }
+            Function<T, Object> get = (Function<T, Object>) lambda;
+            return (source, statement, index) -> statement.setObject(index, get.apply(source));
+        } catch (NoSuchMethodException | IllegalAccessException | LambdaFailure e) {
+            getter = lookup.unreflectGetter(field);
+        }
+        MethodHandle generic = getter.asType(MethodType.methodType(Object.class, Object.class));
+        return (source, statement, index) -> {
+            try {
+                statement.setObject(index, (Object) generic.invokeExact((Object) source));
+            } catch (SQLException | RuntimeException e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Cannot read " + name + " of " + type.getName(), t);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ToIntFunction<T> idOf(MethodHandles.Lookup lookup, Class<T> type, Field field, String getterName) throws ReflectiveOperationException {
+        try {
+            MethodHandle getter = lookup.findVirtual(type, getterName, MethodType.methodType(int.class));
+            return (ToIntFunction<T>) getterLambda(lookup, type, int.class, getter);
+        } catch (NoSuchMethodException | IllegalAccessException | LambdaFailure e) {
+            MethodHandle generic = lookup.unreflectGetter(field).asType(MethodType.methodType(int.class, Object.class));
+            return source -> {
+                try {
+                    return (int) generic.invokeExact((Object) source);
+                } catch (Throwable t) {
+                    throw new IllegalStateException("Cannot read the id of " + type.getName(), t);
+                }
+            };
+        }
+    }
+
+    private static Object getterLambda(MethodHandles.Lookup lookup, Class<?> type, Class<?> fieldType, MethodHandle getter) throws LambdaFailure {
+        Class<?> functionalInterface;
+        String method;
+        Class<?> result;
+        if (fieldType == int.class) {
+            functionalInterface = ToIntFunction.class;
+            method = "applyAsInt";
+            result = int.class;
+        } else if (fieldType == long.class) {
+            functionalInterface = ToLongFunction.class;
+            method = "applyAsLong";
+            result = long.class;
+        } else if (fieldType == double.class) {
+            functionalInterface = ToDoubleFunction.class;
+            method = "applyAsDouble";
+            result = double.class;
+        } else if (!fieldType.isPrimitive()) {
+            functionalInterface = Function.class;
+            method = "apply";
+            result = Object.class;
+        } else {
+            throw new LambdaFailure(null);
+        }
+        try {
+            return LambdaMetafactory.metafactory(lookup, method, MethodType.methodType(functionalInterface),
+                    MethodType.methodType(result, Object.class), getter,
+                    MethodType.methodType(fieldType, type)).getTarget().invoke();
+        } catch (Throwable e) {
+            throw new LambdaFailure(e);
+        }
+    }
+
+    private static Object setterLambda(MethodHandles.Lookup lookup, Class<?> type, Class<?> fieldType, MethodHandle setter) throws LambdaFailure {
+        Class<?> functionalInterface;
+        Class<?> parameter;
+        if (fieldType == int.class) {
+            functionalInterface = ObjIntConsumer.class;
+            parameter = int.class;
+        } else if (fieldType == long.class) {
+            functionalInterface = ObjLongConsumer.class;
+            parameter = long.class;
+        } else if (fieldType == double.class) {
+            functionalInterface = ObjDoubleConsumer.class;
+            parameter = double.class;
+        } else if (!fieldType.isPrimitive()) {
+            functionalInterface = BiConsumer.class;
+            parameter = Object.class;
+        } else {
+            throw new LambdaFailure(null);
+        }
+        try {
+            return LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(functionalInterface),
+                    MethodType.methodType(void.class, Object.class, parameter), setter,
+                    MethodType.methodType(void.class, type, fieldType)).getTarget().invoke();
+        } catch (Throwable e) {
+            throw new LambdaFailure(e);
+        }
+    }
+
+    private static final class LambdaFailure extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private LambdaFailure(Throwable cause) {
+            super(cause);
+        }
+    }
+}
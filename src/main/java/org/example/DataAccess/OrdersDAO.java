@@ -1,6 +1,117 @@
 package org.example.DataAccess;
 
+import org.example.Connection.ConnectionFactory;
 import org.example.Model.Orders;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
 public class OrdersDAO extends AbstractDAO <Orders>{
+    private static final String DELETE_BILLS_OF_CLIENT =
+            "DELETE Bill FROM Bill JOIN Orders ON Bill.idOrder = Orders.id WHERE Orders.client = ?";
+    private static final String DELETE_BILLS_OF_ORDER =
+            "DELETE FROM Bill WHERE idOrder = ?";
+    private static final String DELETE_ORDERS_OF_CLIENT =
+            "DELETE FROM Orders WHERE client = ?";
+    private static final String SALES = "SELECT o.%1$s AS id, COUNT(*) AS orders, SUM(o.quantityOrd) AS units, "
+            + "COALESCE(SUM(b.total), 0) AS revenue FROM Orders o LEFT JOIN Bill b ON b.idOrder = o.id ";
+    private static final String SALES_BY_PRODUCT = String.format(SALES, "product") + "GROUP BY o.product";
+    private static final String SALES_BY_CLIENT = String.format(SALES, "client") + "GROUP BY o.client";
+    private static final String SALES_OF_CLIENT_BY_PRODUCT =
+            String.format(SALES, "product") + "WHERE o.client = ? GROUP BY o.product FOR UPDATE";
+
+    private final BillDAO billDAO = new BillDAO();
+
+    /**
+     * Deletes the bills of every order of a client with one statement.
+     * @param clientId the ID of the client
+     * @return the number of deleted bills
+     */
+    public int deleteBillsOfClient(int clientId) {
+        int deleted = executeUpdate(DELETE_BILLS_OF_CLIENT, clientId);
+        billDAO.invalidateAll();
+        return deleted;
+    }
+
+    /**
+     * Deletes the bill of an order through the index on Bill.idOrder.
+     * @param orderId the ID of the order
+     * @return the number of deleted bills
+     */
+    public int deleteBillsOfOrder(int orderId) {
+        int deleted = executeUpdate(DELETE_BILLS_OF_ORDER, orderId);
+        billDAO.invalidateAll();
+        return deleted;
+    }
+
+    /**
+     * Deletes every order of a client with one statement.
+     * @param clientId the ID of the client
+     * @return the number of deleted orders
+     */
+    public int deleteByClient(int clientId) {
+        int deleted = executeUpdate(DELETE_ORDERS_OF_CLIENT, clientId);
+        invalidateAll();
+        return deleted;
+    }
+
+    /**
+     * Computes the orders, units and revenue of every product with one aggregate query.
+     * @return the totals of every ordered product, or null if the query failed
+     */
+    public List<SalesTotals> findSalesByProduct() {
+        return findSales(SALES_BY_PRODUCT);
+    }
+
+    /**
+     * Computes the orders, units and revenue of every client with one aggregate query.
+     * @return the totals of every client with orders, or null if the query failed
+     */
+    public List<SalesTotals> findSalesByClient() {
+        return findSales(SALES_BY_CLIENT);
+    }
+
+    /**
+     * Computes the orders, units and revenue of one client per product, through the index on Orders.client.
+     * This is a locking read: it sees the latest committed orders of the client and locks them and their bills
+     * until the transaction ends, so orders deleted later in the same transaction are exactly the ones counted.
+     * Must run inside a {@link org.example.Connection.UnitOfWork}.
+     * @param clientId the ID of the client
+     * @return the totals of the client for every product it ordered, or null if the query failed
+     */
+    public List<SalesTotals> findSalesOfClientByProduct(int clientId) {
+        return findSales(SALES_OF_CLIENT_BY_PRODUCT, clientId);
+    }
+
+    private List<SalesTotals> findSales(String query, Object... params) {
+        List<SalesTotals> totals = new ArrayList<>();
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = ConnectionFactory.getConnection();
+            statement = connection.prepareStatement(query);
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                totals.add(new SalesTotals(resultSet.getInt("id"), resultSet.getLong("orders"),
+                        resultSet.getLong("units"), resultSet.getLong("revenue")));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "OrdersDAO:findSales " + e.getMessage());
+            return null;
+        } finally {
+            ConnectionFactory.close(resultSet);
+            ConnectionFactory.close(statement);
+            ConnectionFactory.close(connection);
+        }
+        return totals;
+    }
 }
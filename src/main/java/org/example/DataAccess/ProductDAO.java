@@ -1,6 +1,269 @@
 package org.example.DataAccess;
 
+import org.example.Connection.ConnectionFactory;
 import org.example.Model.Product;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
 public class ProductDAO extends AbstractDAO <Product>{
+    private static final String DECREASE_QUANTITY =
+            "UPDATE Product SET quantityPro = quantityPro - ? WHERE id = ? AND quantityPro >= ?";
+    private static final String SUBTRACT_QUANTITY =
+            "UPDATE Product SET quantityPro = quantityPro - ? WHERE id = ?";
+    private static final String INCREASE_QUANTITY =
+            "UPDATE Product SET quantityPro = quantityPro + ? WHERE id = ?";
+    private static final String CREATE_HOT_PRODUCT_TABLE =
+            "CREATE TABLE IF NOT EXISTS ProductHotMode (product INT NOT NULL PRIMARY KEY, shards INT NOT NULL)";
+    private static final String SAVE_HOT_PRODUCT =
+            "INSERT INTO ProductHotMode (product, shards) VALUES (?, ?) ON DUPLICATE KEY UPDATE shards = VALUES(shards)";
+    private static final String DELETE_HOT_PRODUCT =
+            "DELETE FROM ProductHotMode WHERE product = ?";
+    private static final String FIND_HOT_PRODUCTS =
+            "SELECT product, shards FROM ProductHotMode";
+    private static final String CREATE_STOCK_LEDGER_TABLE =
+            "CREATE TABLE IF NOT EXISTS ProductStockLedger (id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                    + "product INT NOT NULL, quantity INT NOT NULL)";
+    private static final String RECORD_STOCK_CHANGE =
+            "INSERT INTO ProductStockLedger (product, quantity) VALUES (?, ?)";
+    private static final String SUM_STOCK_LEDGER =
+            "SELECT product, SUM(quantity) AS quantity FROM ProductStockLedger GROUP BY product";
+    private static final String FIND_STOCK_LEDGER =
+            "SELECT id, product, quantity FROM ProductStockLedger ORDER BY id LIMIT ?";
+    private static final String DELETE_STOCK_LEDGER_ROW =
+            "DELETE FROM ProductStockLedger WHERE id = ?";
+    private static final String DELETE_STOCK_LEDGER_OF_PRODUCT =
+            "DELETE FROM ProductStockLedger WHERE product = ?";
+
+    /**
+     * Takes a quantity out of the stock of a product with one conditional statement,
+     * so concurrent orders cannot both pass the stock check and oversell.
+     * @param id the ID of the product
+     * @param quantity the quantity to take
+     * @return true if the stock was decreased, false if the product does not exist or has less than quantity left
+     */
+    public boolean decreaseQuantity(int id, int quantity) {
+        boolean decreased = executeUpdate(DECREASE_QUANTITY, quantity, id, quantity) == 1;
+        invalidate(id);
+        return decreased;
+    }
+
+    /**
+     * Takes quantities out of the stock of several products with one batch of conditional statements.
+     * Statements for the same product are applied in order, so each one sees the stock left by the previous ones.
+     * @param ids the ID of the product of every reservation
+     * @param quantities the quantity of every reservation
+     * @return for every reservation, whether the stock was decreased
+     */
+    public boolean[] decreaseQuantities(int[] ids, int[] quantities) {
+        List<Object[]> parameters = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            parameters.add(new Object[]{quantities[i], ids[i], quantities[i]});
+        }
+        int[] counts = executeBatch(DECREASE_QUANTITY, parameters);
+        invalidate(ids);
+        boolean[] decreased = new boolean[ids.length];
+        for (int i = 0; counts != null && i < ids.length; i++) {
+            decreased[i] = counts[i] == 1;
+        }
+        return decreased;
+    }
+
+    /**
+     * Subtracts already reserved quantities from the stock of several products with one batch,
+     * without checking the remaining stock. Used to fold the stock ledger into the Product table.
+     * @param ids the ID of every product
+     * @param quantities the quantity to subtract from every product, negative to add
+     * @return true if the batch was written
+     */
+    public boolean subtractQuantities(int[] ids, int[] quantities) {
+        List<Object[]> parameters = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            parameters.add(new Object[]{quantities[i], ids[i]});
+        }
+        boolean written = executeBatch(SUBTRACT_QUANTITY, parameters) != null;
+        invalidate(ids);
+        return written;
+    }
+
+    /**
+     * Puts a quantity back into the stock of a product.
+     * @param id the ID of the product
+     * @param quantity the quantity to add
+     */
+    public void increaseQuantity(int id, int quantity) {
+        executeUpdate(INCREASE_QUANTITY, quantity, id);
+        invalidate(id);
+    }
+
+    /**
+     * Creates the ProductStockLedger side table if it does not exist yet. Every row is a quantity reserved
+     * in memory, negative for a release, that is not subtracted from Product.quantityPro yet.
+     */
+    public void createStockLedgerTable() {
+        executeUpdate(CREATE_STOCK_LEDGER_TABLE);
+    }
+
+    /**
+     * Inserts stock changes made in memory into the ledger with one batch, inside the current transaction
+     * if there is one, so they are committed or rolled back with the order that made them.
+     * @param ids the ID of the product of every change
+     * @param quantities the reserved quantity of every change, negative for a release
+     * @return true if the batch was written
+     */
+    public boolean recordStockChanges(int[] ids, int[] quantities) {
+        List<Object[]> parameters = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            parameters.add(new Object[]{ids[i], quantities[i]});
+        }
+        return executeBatch(RECORD_STOCK_CHANGE, parameters) != null;
+    }
+
+    /**
+     * Sums the ledger rows that are not folded into the Product table yet.
+     * @return the quantity still to subtract from every product, keyed by product ID
+     */
+    public Map<Integer, Integer> findPendingStockChanges() {
+        Map<Integer, Integer> pending = new HashMap<>();
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = ConnectionFactory.getConnection();
+            statement = connection.prepareStatement(SUM_STOCK_LEDGER);
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                pending.put(resultSet.getInt("product"), resultSet.getInt("quantity"));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "ProductDAO:findPendingStockChanges " + e.getMessage());
+        } finally {
+            ConnectionFactory.close(resultSet);
+            ConnectionFactory.close(statement);
+            ConnectionFactory.close(connection);
+        }
+        return pending;
+    }
+
+    /**
+     * Subtracts the oldest ledger rows from the stock of their products and deletes them. Only committed rows
+     * are read, and they are deleted by id, so rows of transactions still running are left for a later call.
+     * Must run inside a {@link org.example.Connection.UnitOfWork} so that the subtraction and the delete
+     * are committed together.
+     * @param limit the maximum number of ledger rows to fold
+     * @return the number of folded rows, or -1 if a statement failed
+     */
+    public int foldStockLedger(int limit) {
+        Map<Integer, Integer> totals = new HashMap<>();
+        List<Object[]> rows = new ArrayList<>();
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = ConnectionFactory.getConnection();
+            statement = connection.prepareStatement(FIND_STOCK_LEDGER);
+            statement.setInt(1, limit);
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                rows.add(new Object[]{resultSet.getLong("id")});
+                totals.merge(resultSet.getInt("product"), resultSet.getInt("quantity"), Integer::sum);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "ProductDAO:foldStockLedger " + e.getMessage());
+            return -1;
+        } finally {
+            ConnectionFactory.close(resultSet);
+            ConnectionFactory.close(statement);
+            ConnectionFactory.close(connection);
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        int[] ids = new int[totals.size()];
+        int[] quantities = new int[totals.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> total : totals.entrySet()) {
+            ids[i] = total.getKey();
+            quantities[i] = total.getValue();
+            i++;
+        }
+        if (!subtractQuantities(ids, quantities) || executeBatch(DELETE_STOCK_LEDGER_ROW, rows) == null) {
+            return -1;
+        }
+        return rows.size();
+    }
+
+    /**
+     * Creates the ProductHotMode side table if it does not exist yet. The table keeps the products whose
+     * stock is split into sub-counters and the number of sub-counters; how the stock is split between them
+     * is not stored, it is spread evenly again when the inventory starts.
+     */
+    public void createHotProductTable() {
+        executeUpdate(CREATE_HOT_PRODUCT_TABLE);
+    }
+
+    /**
+     * Finds the products that have their stock split into sub-counters.
+     * @return the number of sub-counters of every hot product, keyed by product ID
+     */
+    public Map<Integer, Integer> findHotProducts() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = ConnectionFactory.getConnection();
+            statement = connection.prepareStatement(FIND_HOT_PRODUCTS);
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                counts.put(resultSet.getInt("product"), resultSet.getInt("shards"));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "ProductDAO:findHotProducts " + e.getMessage());
+        } finally {
+            ConnectionFactory.close(resultSet);
+            ConnectionFactory.close(statement);
+            ConnectionFactory.close(connection);
+        }
+        return counts;
+    }
+
+    /**
+     * Records that the stock of a product is split into sub-counters.
+     * @param id the ID of the product
+     * @param shards the number of sub-counters
+     */
+    public void saveHotProduct(int id, int shards) {
+        executeUpdate(SAVE_HOT_PRODUCT, id, shards);
+    }
+
+    /**
+     * Records that a product is no longer hot.
+     * @param id the ID of the product
+     */
+    public void deleteHotProduct(int id) {
+        executeUpdate(DELETE_HOT_PRODUCT, id);
+    }
+
+    /**
+     * Deletes the ledger rows of a deleted product, so that they are not folded into a product
+     * inserted later with the same id.
+     * @param id the ID of the product
+     */
+    public void deleteStockChanges(int id) {
+        executeUpdate(DELETE_STOCK_LEDGER_OF_PRODUCT, id);
+    }
+
+    private void invalidate(int[] ids) {
+        for (int id : ids) {
+            invalidate(id);
+        }
+    }
 }
@@ -0,0 +1,209 @@
+package org.example.DataAccess;
+
+import org.example.Connection.UnitOfWork;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache of query results keyed by table, statement text and bound parameters.
+ * Every table has a version number that writes to it increase; a result is served only while the version
+ * of its table is the one it was read at, and the results of a table are dropped when it changes.
+ * The cache is disabled until {@link #enable(int, long)} is called.
+ */
+public final class QueryCache {
+    private static final QueryCache INSTANCE = new QueryCache();
+
+    /**
+     * Results with more rows than this are not cached.
+     */
+    public static final int MAX_ROWS = 10_000;
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<String, TableResults> results = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile boolean enabled;
+    private volatile int maxEntriesPerTable;
+    private volatile long ttlNanos;
+
+    private QueryCache() {
+    }
+
+    /**
+     * @return the query cache shared by every DAO
+     */
+    public static QueryCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts caching query results.
+     * @param maxEntriesPerTable the number of distinct queries cached per table, least recently used evicted first
+     * @param ttlMillis how long a result is served at most, for rows changed outside the application
+     */
+    public void enable(int maxEntriesPerTable, long ttlMillis) {
+        if (maxEntriesPerTable <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("The size and the time to live of a cache must be positive!");
+        }
+        this.maxEntriesPerTable = maxEntriesPerTable;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        results.clear();
+        enabled = true;
+    }
+
+    /**
+     * Stops caching query results and drops the cached ones.
+     */
+    public void disable() {
+        enabled = false;
+        results.clear();
+    }
+
+    /**
+     * Runs a query through the cache. Queries inside a {@link UnitOfWork} may see uncommitted rows,
+     * so their results are never stored.
+     * @param table the table the query reads
+     * @param sql the statement text
+     * @param parameters the bound parameter values, in order
+     * @param loader runs the query on a miss and returns null if it failed, which is not cached
+     * @param copier copies one row, so cached rows are never shared with callers
+     * @param <R> the type of the rows
+     * @return the rows of the query
+     */
+    public <R> List<R> query(String table, String sql, List<?> parameters, Supplier<List<R>> loader, UnaryOperator<R> copier) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(sql, parameters);
+        long version = version(table).get();
+        TableResults tableResults = results.computeIfAbsent(table, t -> new TableResults());
+        List<?> cached = tableResults.get(key, version);
+        if (cached != null) {
+            hits.increment();
+            return copy(cached, copier);
+        }
+        misses.increment();
+        List<R> rows = loader.get();
+        if (rows != null && !UnitOfWork.isActive() && rows.size() <= MAX_ROWS) {
+            tableResults.put(key, copy(rows, copier), version, System.nanoTime() + ttlNanos, maxEntriesPerTable);
+        }
+        return rows;
+    }
+
+    /**
+     * Records that a table changed: its results are dropped now and again when the surrounding
+     * {@link UnitOfWork} ends, so that no result read before the commit survives it.
+     * @param table the changed table
+     */
+    public void tableChanged(String table) {
+        bump(table);
+        UnitOfWork.afterCompletion(() -> bump(table));
+    }
+
+    private void bump(String table) {
+        version(table).incrementAndGet();
+        TableResults tableResults = results.get(table);
+        if (tableResults != null) {
+            tableResults.clear();
+        }
+    }
+
+    /**
+     * Returns the version of a table, which changes whenever the application writes to the table.
+     * Callers that keep their own data derived from a table compare it to decide when to rebuild.
+     * @param table the table
+     * @return the current version of the table
+     */
+    public long getVersion(String table) {
+        return version(table).get();
+    }
+
+    /**
+     * @return the number of queries answered from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of queries that ran against the database while the cache was enabled
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCache{enabled=" + enabled + ", hits=" + getHits() + ", misses=" + getMisses() + "}";
+    }
+
+    private AtomicLong version(String table) {
+        return versions.computeIfAbsent(table, t -> new AtomicLong());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> List<R> copy(List<?> rows, UnaryOperator<R> copier) {
+        List<R> copy = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            copy.add(copier.apply((R) row));
+        }
+        return copy;
+    }
+
+    /**
+     * The cached results of one table, least recently used first.
+     */
+    private static final class TableResults {
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long version;
+
+        synchronized List<?> get(Key key, long currentVersion) {
+            if (version != currentVersion) {
+                return null;
+            }
+            Entry entry = entries.get(key);
+            if (entry == null || System.nanoTime() - entry.expiresAt > 0) {
+                return null;
+            }
+            return entry.rows;
+        }
+
+        synchronized void put(Key key, List<?> rows, long readVersion, long expiresAt, int maxEntries) {
+            if (readVersion < version) {
+                return;
+            }
+            if (readVersion > version) {
+                entries.clear();
+                version = readVersion;
+            }
+            entries.put(key, new Entry(rows, expiresAt));
+            if (entries.size() > maxEntries) {
+                entries.remove(entries.keySet().iterator().next());
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+    }
+
+    private record Entry(List<?> rows, long expiresAt) {
+    }
+
+    private record Key(String sql, List<?> parameters) {
+        private Key {
+            Objects.requireNonNull(sql);
+            parameters = List.copyOf(parameters);
+        }
+    }
+}
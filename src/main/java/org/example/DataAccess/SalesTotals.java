@@ -0,0 +1,11 @@
+package org.example.DataAccess;
+
+/**
+ * Sales totals of one product or one client, as computed by an aggregate query.
+ * @param id the ID of the product or client
+ * @param orders the number of orders
+ * @param units the number of ordered units
+ * @param revenue the sum of the bills of the orders
+ */
+public record SalesTotals(int id, long orders, long units, long revenue) {
+}
@@ -0,0 +1,67 @@
+package org.example.DataAccess;
+
+import org.example.Connection.ConnectionFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates the secondary indexes the data-access layer relies on, if the database does not have them yet.
+ */
+public final class Schema {
+    private static final Logger LOGGER = Logger.getLogger(Schema.class.getName());
+
+    /**
+     * Every index as {table, index name, column}: orders are looked up by client and by product,
+     * and bills by their order.
+     */
+    private static final String[][] INDEXES = {
+            {"Orders", "idx_orders_client", "client"},
+            {"Orders", "idx_orders_product", "product"},
+            {"Bill", "idx_bill_idOrder", "idOrder"},
+    };
+
+    private static final String FIND_INDEX = "SELECT COUNT(*) FROM information_schema.statistics "
+            + "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ? AND seq_in_index = 1";
+
+    private Schema() {
+    }
+
+    /**
+     * Creates every missing index. A column that already leads an index, for example one created
+     * for a foreign key, is left alone.
+     */
+    public static void ensureIndexes() {
+        Connection connection = null;
+        try {
+            connection = ConnectionFactory.getConnection();
+            for (String[] index : INDEXES) {
+                if (!hasIndex(connection, index[0], index[2])) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.executeUpdate("CREATE INDEX " + index[1] + " ON " + index[0] + " (" + index[2] + ")");
+                    }
+                    LOGGER.log(Level.INFO, "Created index " + index[1] + " on " + index[0] + "(" + index[2] + ")");
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Schema:ensureIndexes " + e.getMessage());
+        } finally {
+            ConnectionFactory.close(connection);
+        }
+    }
+
+    private static boolean hasIndex(Connection connection, String table, String column) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(FIND_INDEX)) {
+            statement.setString(1, table);
+            statement.setString(2, column);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getInt(1) > 0;
+            }
+        }
+    }
+}
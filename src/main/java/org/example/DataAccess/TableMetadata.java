@@ -0,0 +1,193 @@
+package org.example.DataAccess;
+
+import org.example.Connection.ConnectionFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches the column names and the generated SQL statements of the table behind an entity type.
+ * Everything is computed once per type and kept for the life of the process.
+ */
+final class TableMetadata {
+    private static final Logger LOGGER = Logger.getLogger(TableMetadata.class.getName());
+    private static final Map<Class<?>, TableMetadata> CACHE = new ConcurrentHashMap<>();
+
+    private final String table;
+    private final String selectAll;
+    private final String selectIds;
+    private final String selectPage;
+    private final String deleteById;
+    private final Map<String, String> selectBy = new ConcurrentHashMap<>();
+    private final Map<String, String> updates = new ConcurrentHashMap<>();
+    private final Map<Integer, String> selectIn = new ConcurrentHashMap<>();
+    private volatile List<String> columns;
+    private volatile String insert;
+
+    /**
+     * Returns the metadata of the table behind a type.
+     * @param type the class of the entity, named like its table
+     * @return the shared metadata of the table
+     */
+    static TableMetadata of(Class<?> type) {
+        return CACHE.computeIfAbsent(type, t -> new TableMetadata(t.getSimpleName()));
+    }
+
+    private TableMetadata(String table) {
+        this.table = table;
+        this.selectAll = "SELECT * FROM " + table;
+        this.selectIds = "SELECT id FROM " + table;
+        this.selectPage = selectAll + " WHERE id > ? ORDER BY id LIMIT ?";
+        this.deleteById = "DELETE FROM " + table + " WHERE id = ?";
+    }
+
+    String getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the column names of the table. They are read once from the metadata of an empty result,
+     * so the table itself is never scanned.
+     * @return the column names in table order, or an empty list if they could not be read yet
+     */
+    List<String> getColumns() {
+        List<String> result = columns;
+        if (result == null) {
+            synchronized (this) {
+                result = columns;
+                if (result == null) {
+                    result = loadColumns();
+                    if (!result.isEmpty()) {
+                        columns = result;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param field the column used in the WHERE clause or "ALL" for the whole table
+     * @return the SELECT statement
+     */
+    String selectQuery(String field) {
+        if (field.equals("ALL")) {
+            return selectAll;
+        }
+        return selectBy.computeIfAbsent(field, f -> selectAll + " WHERE " + f + " = ?");
+    }
+
+    /**
+     * @return the SELECT statement reading every id of the table
+     */
+    String selectIdsQuery() {
+        return selectIds;
+    }
+
+    /**
+     * @return the keyset pagination statement reading the rows after a given id, ordered by id
+     */
+    String selectPageQuery() {
+        return selectPage;
+    }
+
+    /**
+     * @param count the number of ids in the IN list
+     * @return the SELECT statement reading the rows whose id is one of count parameters
+     */
+    String selectInQuery(int count) {
+        return selectIn.computeIfAbsent(count, n -> selectAll + " WHERE id IN ("
+                + String.join(",", Collections.nCopies(n, "?")) + ")");
+    }
+
+    /**
+     * @return the INSERT statement covering every column of the table
+     */
+    String insertQuery() {
+        String result = insert;
+        if (result == null) {
+            List<String> names = getColumns();
+            result = "INSERT INTO " + table + " (" + String.join(",", names) + ") VALUES ("
+                    + String.join(",", Collections.nCopies(names.size(), "?")) + ")";
+            if (!names.isEmpty()) {
+                insert = result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param column the column to update
+     * @return the UPDATE statement setting the column of the row with a given id
+     */
+    String updateQuery(String column) {
+        return updates.computeIfAbsent(column, c -> "UPDATE " + table + " SET " + c + " = ? WHERE id = ?");
+    }
+
+    /**
+     * @param columns the columns to update, in parameter order
+     * @return the UPDATE statement setting all the columns of the row with a given id in one statement
+     */
+    String updateQuery(List<String> columns) {
+        if (columns.size() == 1) {
+            return updateQuery(columns.get(0));
+        }
+        return updates.computeIfAbsent(String.join(",", columns), key -> "UPDATE " + table + " SET "
+                + String.join(" = ?, ", columns) + " = ? WHERE id = ?");
+    }
+
+    /**
+     * Finds the table column with a given name, ignoring case.
+     * @param name the name to look up
+     * @return the column name as stored in the table, or null if the table has no such column
+     */
+    String column(String name) {
+        for (String column : getColumns()) {
+            if (column.equalsIgnoreCase(name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the DELETE statement removing the row with a given id
+     */
+    String deleteQuery() {
+        return deleteById;
+    }
+
+    private List<String> loadColumns() {
+        List<String> names = new ArrayList<>();
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = ConnectionFactory.getConnection();
+            statement = connection.prepareStatement(selectAll + " WHERE 1 = 0");
+            resultSet = statement.executeQuery();
+            ResultSetMetaData rsmd = resultSet.getMetaData();
+            int count = rsmd.getColumnCount();
+            for (int i = 1; i <= count; i++) {
+                names.add(rsmd.getColumnName(i));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "TableMetadata:loadColumns " + table + " " + e.getMessage());
+        } finally {
+            ConnectionFactory.close(resultSet);
+            ConnectionFactory.close(statement);
+            ConnectionFactory.close(connection);
+        }
+        return Collections.unmodifiableList(names);
+    }
+}
@@ -0,0 +1,309 @@
+package org.example.DataTransfer;
+
+import org.example.DataAccess.BatchResult;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Imports a CSV file into one table.
+ * A reader thread parses the file with a {@link CsvReader} and turns its records into entities, in chunks,
+ * while the calling thread writes the previous chunk with the bulk method of the business logic, which
+ * validates the rows in parallel and inserts them in JDBC batches. Chunks are written in file order.
+ * <p>
+ * Rows that cannot be parsed or are rejected by a validator or by the database are copied to a reject
+ * file next to the input, {@code <file>.rejects.csv}, with their row number and the reason. After every
+ * chunk the byte offset of the next one is saved in {@code <file>.checkpoint}; a later run on the same file
+ * continues from there, and the checkpoint is deleted when the whole file has been imported. A chunk
+ * that was written just before a crash is read again, and its rows are then rejected as duplicates by their id.
+ * @param <T> the type of the imported entity
+ */
+public final class CsvImporter<T> {
+    private static final Logger LOGGER = Logger.getLogger(CsvImporter.class.getName());
+
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+    private static final int CHUNKS_AHEAD = 2;
+
+    private final ImportTarget<T> target;
+    private final Path file;
+    private final Path checkpointFile;
+    private final Path rejectFile;
+    private final int chunkSize;
+
+    /**
+     * @param target the table to import into
+     * @param file the CSV file, whose first record names the columns
+     */
+    public CsvImporter(ImportTarget<T> target, Path file) {
+        this(target, file, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param target the table to import into
+     * @param file the CSV file, whose first record names the columns
+     * @param chunkSize the number of rows validated and written together
+     */
+    public CsvImporter(ImportTarget<T> target, Path file, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive!");
+        }
+        this.target = target;
+        this.file = file;
+        this.checkpointFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+        this.rejectFile = file.resolveSibling(file.getFileName() + ".rejects.csv");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the file holding the position reached by an unfinished import
+     */
+    public Path getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * @return the file the rejected rows are written to
+     */
+    public Path getRejectFile() {
+        return rejectFile;
+    }
+
+    /**
+     * Imports the file, or the rest of it if an earlier run left a checkpoint.
+     * @return the numbers of rows read, imported and rejected by this run
+     * @throws IOException if a file cannot be read or written
+     * @throws IllegalArgumentException if the header lacks a column of the table
+     * @throws IllegalStateException if the file changed since the checkpoint was saved
+     */
+    public ImportReport run() throws IOException {
+        long started = System.nanoTime();
+        String[] header;
+        long dataStart;
+        try (CsvReader reader = new CsvReader(file)) {
+            header = reader.next();
+            dataStart = reader.position();
+        }
+        if (header == null) {
+            return new ImportReport(0, 0, 0, 0);
+        }
+        int[] positions = target.mapHeader(header);
+        long size = Files.size(file);
+        Properties checkpoint = readCheckpoint(size);
+        long offset = checkpoint != null ? Long.parseLong(checkpoint.getProperty("offset")) : dataStart;
+        long row = checkpoint != null ? Long.parseLong(checkpoint.getProperty("row")) : 0;
+
+        BlockingQueue<Chunk<T>> chunks = new ArrayBlockingQueue<>(CHUNKS_AHEAD);
+        Thread reader = new Thread(() -> read(offset, row, positions, chunks), "csv-reader-" + target.getTable());
+        reader.setDaemon(true);
+        reader.start();
+        long rows = 0;
+        long imported = 0;
+        long rejected = 0;
+        try (Writer rejects = openRejects(header, checkpoint != null)) {
+            while (true) {
+                Chunk<T> chunk = chunks.take();
+                if (chunk.failure != null) {
+                    throw chunk.failure;
+                }
+                if (chunk.records.isEmpty()) {
+                    break;
+                }
+                String[] errors = chunk.errors;
+                if (!chunk.entities.isEmpty()) {
+                    BatchResult<T> result = target.write(chunk.entities);
+                    for (Map.Entry<Integer, String> failure : result.getFailures().entrySet()) {
+                        errors[chunk.recordOf[failure.getKey()]] = failure.getValue();
+                    }
+                    imported += result.getInserted().size();
+                }
+                for (int i = 0; i < errors.length; i++) {
+                    if (errors[i] != null) {
+                        writeReject(rejects, chunk.firstRow + i, errors[i], chunk.records.get(i));
+                        rejected++;
+                    }
+                }
+                rejects.flush();
+                rows += chunk.records.size();
+                writeCheckpoint(chunk.endOffset, chunk.firstRow + chunk.records.size() - 1, size);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The import was interrupted", e);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            reader.interrupt();
+        }
+        Files.deleteIfExists(checkpointFile);
+        return new ImportReport(rows, imported, rejected, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Runs on the reader thread: parses the file from an offset and hands over one chunk at a time,
+     * then an empty chunk at the end of the file.
+     */
+    private void read(long offset, long lastRow, int[] positions, BlockingQueue<Chunk<T>> chunks) {
+        try (CsvReader reader = new CsvReader(file, offset)) {
+            long row = lastRow + 1;
+            while (true) {
+                Chunk<T> chunk = new Chunk<>(row, chunkSize);
+                String[] record;
+                while (chunk.records.size() < chunkSize && (record = reader.next()) != null) {
+                    chunk.add(record, positions, target);
+                }
+                chunk.finish(reader.position());
+                chunks.put(chunk);
+                if (chunk.records.isEmpty()) {
+                    return;
+                }
+                row += chunk.records.size();
+            }
+        } catch (IOException e) {
+            putFailure(chunks, new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            putFailure(chunks, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> void putFailure(BlockingQueue<Chunk<T>> chunks, RuntimeException failure) {
+        Chunk<T> chunk = new Chunk<>(0, 0);
+        chunk.failure = failure;
+        try {
+            chunks.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Writer openRejects(String[] header, boolean resume) throws IOException {
+        boolean append = resume && Files.exists(rejectFile);
+        BufferedWriter writer = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        if (!append) {
+            writer.write("row,reason");
+            for (String column : header) {
+                writer.write(',');
+                writer.write(quote(column));
+            }
+            writer.write('\n');
+        }
+        return writer;
+    }
+
+    private static void writeReject(Writer rejects, long row, String reason, String[] record) throws IOException {
+        rejects.write(Long.toString(row));
+        rejects.write(',');
+        rejects.write(quote(reason));
+        for (String field : record) {
+            rejects.write(',');
+            rejects.write(quote(field));
+        }
+        rejects.write('\n');
+    }
+
+    private static String quote(String field) {
+        if (field == null) {
+            return "";
+        }
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + field.replace("\"", "\"\"") + '"';
+            }
+        }
+        return field;
+    }
+
+    /**
+     * @return the saved checkpoint, or null if the import starts from the beginning
+     */
+    private Properties readCheckpoint(long size) throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return null;
+        }
+        Properties checkpoint = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointFile)) {
+            checkpoint.load(in);
+        }
+        if (Long.parseLong(checkpoint.getProperty("size", "-1")) != size) {
+            throw new IllegalStateException("The file " + file + " changed since its checkpoint was saved!");
+        }
+        LOGGER.log(Level.INFO, "CsvImporter:run resuming " + file + " after row " + checkpoint.getProperty("row"));
+        return checkpoint;
+    }
+
+    /**
+     * Replaces the checkpoint atomically, so that a crash leaves either the old or the new one.
+     */
+    private void writeCheckpoint(long offset, long row, long size) throws IOException {
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("offset", Long.toString(offset));
+        checkpoint.setProperty("row", Long.toString(row));
+        checkpoint.setProperty("size", Long.toString(size));
+        Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            checkpoint.store(out, null);
+        }
+        Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The records of one chunk, the entities parsed from them and, for every record, why it was rejected.
+     */
+    private static final class Chunk<T> {
+        private final long firstRow;
+        private final List<String[]> records;
+        private final List<T> entities;
+        private final List<String> parseErrors;
+        private int[] recordOf;
+        private String[] errors;
+        private long endOffset;
+        private RuntimeException failure;
+
+        private Chunk(long firstRow, int capacity) {
+            this.firstRow = firstRow;
+            this.records = new ArrayList<>(capacity);
+            this.entities = new ArrayList<>(capacity);
+            this.parseErrors = new ArrayList<>();
+            this.recordOf = new int[capacity];
+        }
+
+        private void add(String[] record, int[] positions, ImportTarget<T> target) {
+            int index = records.size();
+            records.add(record);
+            try {
+                T entity = target.parse(record, positions);
+                recordOf[entities.size()] = index;
+                entities.add(entity);
+                parseErrors.add(null);
+            } catch (RuntimeException e) {
+                parseErrors.add(e.getMessage() != null ? e.getMessage() : e.toString());
+            }
+        }
+
+        private void finish(long offset) {
+            endOffset = offset;
+            errors = parseErrors.toArray(new String[0]);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.DataTransfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming reader for UTF-8 CSV files in the RFC 4180 format: fields separated by commas, records by
+ * LF or CRLF, and quoted fields that may contain commas, line breaks and doubled quotes.
+ * The file is read through a {@link FileChannel} into one reused buffer, so memory does not grow with
+ * the size of the file. {@link #position()} gives the byte offset after the last record, from which a
+ * later reader can resume.
+ */
+public final class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte COMMA = ',';
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] bytes = buffer.array();
+    private final List<String> fields = new ArrayList<>();
+    private byte[] field = new byte[256];
+    private int fieldLength;
+    private int index;
+    private int limit;
+    private long bufferStart;
+    private boolean eof;
+
+    /**
+     * Opens a file and reads it from the start, skipping a UTF-8 byte order mark.
+     * @param file the file to read
+     * @throws IOException if the file cannot be opened
+     */
+    public CsvReader(Path file) throws IOException {
+        this(file, 0);
+    }
+
+    /**
+     * Opens a file and reads it from a byte offset returned earlier by {@link #position()}.
+     * @param file the file to read
+     * @param offset where the first record starts
+     * @throws IOException if the file cannot be opened
+     */
+    public CsvReader(Path file, long offset) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        channel.position(offset);
+        bufferStart = offset;
+        if (offset == 0 && fill() && limit >= 3
+                && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB && (bytes[2] & 0xFF) == 0xBF) {
+            index = 3;
+        }
+    }
+
+    /**
+     * Reads the next record. Empty lines are skipped.
+     * @return the fields of the record, or null at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    public String[] next() throws IOException {
+        fields.clear();
+        fieldLength = 0;
+        boolean quoted = false;
+        boolean inQuotes = false;
+        boolean started = false;
+        while (true) {
+            if (index == limit && !fill()) {
+                if (!started) {
+                    return null;
+                }
+                endField(quoted);
+                return fields.toArray(new String[0]);
+            }
+            byte b = bytes[index++];
+            if (inQuotes) {
+                if (b != QUOTE) {
+                    append(b);
+                } else if (index == limit && !fill()) {
+                    inQuotes = false;
+                } else if (bytes[index] == QUOTE) {
+                    append(QUOTE);
+                    index++;
+                } else {
+                    inQuotes = false;
+                }
+            } else if (b == COMMA) {
+                endField(quoted);
+                quoted = false;
+                started = true;
+            } else if (b == LF || b == CR) {
+                if (b == CR && (index < limit || fill()) && bytes[index] == LF) {
+                    index++;
+                }
+                if (started || fieldLength > 0 || quoted) {
+                    endField(quoted);
+                    return fields.toArray(new String[0]);
+                }
+            } else if (b == QUOTE && fieldLength == 0 && !quoted) {
+                quoted = true;
+                inQuotes = true;
+                started = true;
+            } else {
+                append(b);
+                started = true;
+            }
+        }
+    }
+
+    /**
+     * @return the byte offset in the file right after the last record returned by {@link #next()}
+     */
+    public long position() {
+        return bufferStart + index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void append(byte b) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, fieldLength * 2);
+        }
+        field[fieldLength++] = b;
+    }
+
+    private void endField(boolean quoted) {
+        fields.add(fieldLength == 0 && !quoted ? "" : new String(field, 0, fieldLength, StandardCharsets.UTF_8));
+        fieldLength = 0;
+    }
+
+    /**
+     * Reads the next part of the file into the buffer.
+     * @return false at the end of the file
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        bufferStart += limit;
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        if (read < 0) {
+            eof = true;
+            bufferStart -= limit;
+            return false;
+        }
+        index = 0;
+        limit = buffer.position();
+        return true;
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.DataTransfer;
+
+/**
+ * The file formats of an export.
+ */
+public enum ExportFormat {
+    /**
+     * Comma separated values with a header row, quoted as in RFC 4180.
+     */
+    CSV("csv"),
+    /**
+     * JSON Lines: one JSON object per line, so that every row, and every file of a split export, can be
+     * read on its own.
+     */
+    JSON("jsonl");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return the file extension, without the dot
+     */
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.DataTransfer;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The outcome of exporting one table with a {@link TableExporter}.
+ * @param table the exported table
+ * @param rows the number of rows written
+ * @param bytes the size of the written files
+ * @param files the written files, in order
+ * @param millis how long the export took
+ */
+public record ExportReport(String table, long rows, long bytes, List<Path> files, long millis) {
+
+    @Override
+    public String toString() {
+        return table + ": " + rows + " rows, " + bytes + " bytes in " + files.size() + " file(s), " + millis + " ms";
+    }
+}
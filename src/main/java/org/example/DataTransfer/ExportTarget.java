@@ -0,0 +1,107 @@
+package org.example.DataTransfer;
+
+import org.example.BusinessLogic.BillBLL;
+import org.example.BusinessLogic.ClientBLL;
+import org.example.BusinessLogic.OrdersBLL;
+import org.example.BusinessLogic.ProductBLL;
+import org.example.Model.Bill;
+import org.example.Model.Client;
+import org.example.Model.Orders;
+import org.example.Model.Product;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * A table that can be exported: the cursor its rows are streamed from and how every column is written.
+ * @param <T> the type of the exported entity
+ */
+public final class ExportTarget<T> {
+    public static final ExportTarget<Orders> ORDERS = new ExportTarget<>("Orders",
+            () -> new OrdersBLL().streamOrders(),
+            new String[]{"id", "client", "product", "quantityOrd"},
+            List.of(intColumn(Orders::getId), intColumn(Orders::getClient), intColumn(Orders::getProduct),
+                intColumn(Orders::getQuantityOrd)));
+    public static final ExportTarget<Bill> BILLS = new ExportTarget<>("Bill",
+            () -> new BillBLL().streamBills(),
+            new String[]{"id", "idOrder", "total"},
+            List.of(intColumn(Bill::id), intColumn(Bill::idOrder), intColumn(Bill::total)));
+    public static final ExportTarget<Client> CLIENTS = new ExportTarget<>("Client",
+            () -> new ClientBLL().streamClients(),
+            new String[]{"id", "name", "address", "email"},
+            List.of(intColumn(Client::getId), stringColumn(Client::getName), stringColumn(Client::getAddress),
+                stringColumn(Client::getEmail)));
+    public static final ExportTarget<Product> PRODUCTS = new ExportTarget<>("Product",
+            () -> new ProductBLL().streamProducts(),
+            new String[]{"id", "name", "quantityPro", "price"},
+            List.of(intColumn(Product::getId), stringColumn(Product::getName), intColumn(Product::getQuantityPro),
+                intColumn(Product::getPrice)));
+
+    private final String table;
+    private final Supplier<Stream<T>> source;
+    private final String[] columns;
+    private final List<ColumnWriter<T>> writers;
+
+    private ExportTarget(String table, Supplier<Stream<T>> source, String[] columns, List<ColumnWriter<T>> writers) {
+        this.table = table;
+        this.source = source;
+        this.columns = columns;
+        this.writers = List.copyOf(writers);
+    }
+
+    /**
+     * @param table the name of a table, ignoring case
+     * @return the export target of the table
+     * @throws IllegalArgumentException if the table cannot be exported
+     */
+    public static ExportTarget<?> forTable(String table) {
+        for (ExportTarget<?> target : new ExportTarget<?>[]{ORDERS, BILLS, CLIENTS, PRODUCTS}) {
+            if (target.table.equalsIgnoreCase(table)) {
+                return target;
+            }
+        }
+        throw new IllegalArgumentException("The table " + table + " cannot be exported!");
+    }
+
+    /**
+     * @return the name of the table
+     */
+    public String getTable() {
+        return table;
+    }
+
+    String[] getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return a lazy stream over a database cursor, which must be closed
+     */
+    Stream<T> stream() {
+        return source.get();
+    }
+
+    /**
+     * Writes the columns of one row; the caller ends the row.
+     */
+    void write(ExportWriter writer, T t) {
+        for (ColumnWriter<T> column : writers) {
+            column.write(writer, t);
+        }
+    }
+
+    private static <T> ColumnWriter<T> intColumn(ToIntFunction<T> getter) {
+        return (writer, t) -> writer.writeInt(getter.applyAsInt(t));
+    }
+
+    private static <T> ColumnWriter<T> stringColumn(Function<T, String> getter) {
+        return (writer, t) -> writer.writeString(getter.apply(t));
+    }
+
+    private interface ColumnWriter<T> {
+        void write(ExportWriter writer, T t);
+    }
+}
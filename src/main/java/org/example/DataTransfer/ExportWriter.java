@@ -0,0 +1,300 @@
+package org.example.DataTransfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes rows to one or more files through a {@link FileChannel}, optionally gzip compressed.
+ * A row is encoded straight into a reused byte array, digit by digit and character by character, so
+ * writing a row does not allocate; full rows are then copied into the output buffer.
+ * When a file reaches the size limit, the next row starts a new numbered file with its own header.
+ * For compressed files the limit applies to the compressed size written so far.
+ */
+final class ExportWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+    private final String baseName;
+    private final ExportFormat format;
+    private final boolean gzip;
+    private final long maxFileBytes;
+    private final byte[][] names;
+    private final byte[] header;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] out = buffer.array();
+    private final List<Path> files = new ArrayList<>();
+    private byte[] row = new byte[256];
+    private int rowLength;
+    private int pending;
+    private int column;
+    private FileChannel channel;
+    private GZIPOutputStream compressed;
+    private long fileBytes;
+    private long totalBytes;
+
+    /**
+     * @param directory where the files are created
+     * @param baseName the name of the files without extension, usually the table
+     * @param format the file format
+     * @param columns the names of the columns, in the order their values are written
+     * @param gzip whether to compress the files
+     * @param maxFileBytes the size after which a new file is started, or 0 for a single file
+     */
+    ExportWriter(Path directory, String baseName, ExportFormat format, String[] columns, boolean gzip, long maxFileBytes) {
+        this.directory = directory;
+        this.baseName = baseName;
+        this.format = format;
+        this.gzip = gzip;
+        this.maxFileBytes = maxFileBytes;
+        this.names = new byte[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            names[i] = (format == ExportFormat.JSON ? "\"" + columns[i] + "\":" : columns[i])
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+        this.header = format == ExportFormat.CSV
+                ? (String.join(",", columns) + "\n").getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    /**
+     * Writes an int value as the next column of the current row.
+     * @param value the value
+     */
+    void writeInt(int value) {
+        startField();
+        long v = value;
+        if (v < 0) {
+            put('-');
+            v = -v;
+        }
+        int start = rowLength;
+        do {
+            put((int) ('0' + v % 10));
+            v /= 10;
+        } while (v != 0);
+        for (int i = start, j = rowLength - 1; i < j; i++, j--) {
+            byte b = row[i];
+            row[i] = row[j];
+            row[j] = b;
+        }
+    }
+
+    /**
+     * Writes a string value as the next column of the current row; null is written as an empty CSV
+     * field or as JSON null.
+     * @param value the value
+     */
+    void writeString(String value) {
+        startField();
+        if (value == null) {
+            if (format == ExportFormat.JSON) {
+                putAscii("null");
+            }
+            return;
+        }
+        if (format == ExportFormat.JSON) {
+            put('"');
+            putUtf8(value, true);
+            put('"');
+        } else if (needsQuotes(value)) {
+            put('"');
+            putUtf8(value, false);
+            put('"');
+        } else {
+            putUtf8(value, false);
+        }
+    }
+
+    /**
+     * Ends the current row and moves it to the output, starting a new file first if the current one is full.
+     * @throws IOException if the file cannot be written
+     */
+    void endRow() throws IOException {
+        if (format == ExportFormat.JSON) {
+            put('}');
+        }
+        put('\n');
+        if (channel == null || (maxFileBytes > 0 && (gzip ? fileBytes : fileBytes + pending) >= maxFileBytes)) {
+            nextFile();
+        }
+        append(row, rowLength);
+        rowLength = 0;
+        column = 0;
+    }
+
+    /**
+     * @return the files written so far
+     */
+    List<Path> getFiles() {
+        return files;
+    }
+
+    /**
+     * @return the number of bytes written to the files, after compression
+     */
+    long getBytes() {
+        return totalBytes + (channel != null && !gzip ? pending : 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel == null) {
+            nextFile();
+        }
+        closeFile();
+    }
+
+    private void startField() {
+        if (column == 0) {
+            if (format == ExportFormat.JSON) {
+                put('{');
+            }
+        } else {
+            put(',');
+        }
+        if (format == ExportFormat.JSON) {
+            byte[] name = names[column];
+            ensure(name.length);
+            System.arraycopy(name, 0, row, rowLength, name.length);
+            rowLength += name.length;
+        }
+        column++;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encodes a string as UTF-8, escaping it for a JSON string or a quoted CSV field.
+     */
+    private void putUtf8(String value, boolean json) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                put(json ? '\\' : '"');
+                put('"');
+            } else if (json && c == '\\') {
+                put('\\');
+                put('\\');
+            } else if (json && c < 0x20) {
+                putAscii("\\u00");
+                put(Character.forDigit(c >> 4, 16));
+                put(Character.forDigit(c & 0xF, 16));
+            } else if (c < 0x80) {
+                put(c);
+            } else if (c < 0x800) {
+                put(0xC0 | c >> 6);
+                put(0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int code = Character.toCodePoint(c, value.charAt(++i));
+                put(0xF0 | code >> 18);
+                put(0x80 | code >> 12 & 0x3F);
+                put(0x80 | code >> 6 & 0x3F);
+                put(0x80 | code & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                put('?');
+            } else {
+                put(0xE0 | c >> 12);
+                put(0x80 | c >> 6 & 0x3F);
+                put(0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    private void putAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            put(value.charAt(i));
+        }
+    }
+
+    private void put(int b) {
+        if (rowLength == row.length) {
+            row = Arrays.copyOf(row, rowLength * 2);
+        }
+        row[rowLength++] = (byte) b;
+    }
+
+    private void ensure(int length) {
+        if (rowLength + length > row.length) {
+            row = Arrays.copyOf(row, Math.max(rowLength + length, rowLength * 2));
+        }
+    }
+
+    private void append(byte[] bytes, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            if (pending == out.length) {
+                flush();
+            }
+            int count = Math.min(length - offset, out.length - pending);
+            System.arraycopy(bytes, offset, out, pending, count);
+            pending += count;
+            offset += count;
+        }
+    }
+
+    private void flush() throws IOException {
+        if (gzip) {
+            compressed.write(out, 0, pending);
+            long size = channel.position();
+            totalBytes += size - fileBytes;
+            fileBytes = size;
+        } else {
+            buffer.clear().limit(pending);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            fileBytes += pending;
+            totalBytes += pending;
+        }
+        pending = 0;
+    }
+
+    private void nextFile() throws IOException {
+        closeFile();
+        String name = baseName + (maxFileBytes > 0 ? String.format("-%05d", files.size() + 1) : "")
+                + "." + format.getExtension() + (gzip ? ".gz" : "");
+        Path file = directory.resolve(name);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (gzip) {
+            compressed = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        }
+        files.add(file);
+        fileBytes = 0;
+        append(header, header.length);
+    }
+
+    private void closeFile() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        flush();
+        if (gzip) {
+            compressed.finish();
+            totalBytes += channel.position() - fileBytes;
+            compressed.close();
+        } else {
+            channel.close();
+        }
+        channel = null;
+        compressed = null;
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.DataTransfer;
+
+/**
+ * The outcome of one run of a {@link CsvImporter}.
+ * @param rows the number of records read in this run, without the header
+ * @param imported the number of rows written to the database
+ * @param rejected the number of rows written to the reject file
+ * @param millis how long the run took
+ */
+public record ImportReport(long rows, long imported, long rejected, long millis) {
+
+    /**
+     * @return the number of records processed per second
+     */
+    public long rowsPerSecond() {
+        return millis == 0 ? rows : rows * 1000 / millis;
+    }
+
+    @Override
+    public String toString() {
+        return rows + " rows, " + imported + " imported, " + rejected + " rejected in " + millis + " ms ("
+                + rowsPerSecond() + " rows/s)";
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.DataTransfer;
+
+import org.example.BusinessLogic.ClientBLL;
+import org.example.BusinessLogic.OrdersBLL;
+import org.example.BusinessLogic.ProductBLL;
+import org.example.DataAccess.BatchResult;
+import org.example.Model.Client;
+import org.example.Model.Orders;
+import org.example.Model.Product;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A table that can be imported from CSV: the columns it reads, how a record becomes an entity and
+ * which bulk method of the business logic writes the entities. The columns of the file are matched to
+ * the fields of the model by the header row, in any order and ignoring case. Every column is required,
+ * the id included: the bills of imported orders are keyed by the order id and a resumed import relies
+ * on the ids to reject rows written twice.
+ * @param <T> the type of the imported entity
+ */
+public final class ImportTarget<T> {
+    public static final ImportTarget<Client> CLIENTS = new ImportTarget<>("Client",
+            new String[]{"id", "name", "address", "email"},
+            r -> new Client(r.getInt(0), r.getString(1), r.getString(2), r.getString(3)),
+            list -> new ClientBLL().insertClients(list));
+    public static final ImportTarget<Product> PRODUCTS = new ImportTarget<>("Product",
+            new String[]{"id", "name", "quantityPro", "price"},
+            r -> new Product(r.getInt(0), r.getString(1), r.getInt(2), r.getInt(3)),
+            list -> new ProductBLL().insertProducts(list));
+    public static final ImportTarget<Orders> ORDERS = new ImportTarget<>("Orders",
+            new String[]{"id", "client", "product", "quantityOrd"},
+            r -> new Orders(r.getInt(0), r.getInt(1), r.getInt(2), r.getInt(3)),
+            list -> new OrdersBLL().insertOrdersBatch(list));
+
+    private final String table;
+    private final String[] columns;
+    private final Function<Record, T> factory;
+    private final Function<List<T>, BatchResult<T>> writer;
+
+    private ImportTarget(String table, String[] columns, Function<Record, T> factory,
+                         Function<List<T>, BatchResult<T>> writer) {
+        this.table = table;
+        this.columns = columns;
+        this.factory = factory;
+        this.writer = writer;
+    }
+
+    /**
+     * @param table the name of a table, ignoring case
+     * @return the import target of the table
+     * @throws IllegalArgumentException if the table cannot be imported
+     */
+    public static ImportTarget<?> forTable(String table) {
+        for (ImportTarget<?> target : new ImportTarget<?>[]{CLIENTS, PRODUCTS, ORDERS}) {
+            if (target.table.equalsIgnoreCase(table)) {
+                return target;
+            }
+        }
+        throw new IllegalArgumentException("The table " + table + " cannot be imported!");
+    }
+
+    /**
+     * @return the name of the table
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Finds the position of every column in a header row.
+     * @param header the first record of the file
+     * @return for every column of the target, its position in the records
+     * @throws IllegalArgumentException if a column is missing
+     */
+    int[] mapHeader(String[] header) {
+        int[] positions = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            positions[i] = -1;
+            for (int j = 0; j < header.length; j++) {
+                if (header[j].trim().equalsIgnoreCase(columns[i])) {
+                    positions[i] = j;
+                    break;
+                }
+            }
+            if (positions[i] < 0) {
+                throw new IllegalArgumentException("The column " + columns[i] + " is missing from the header!");
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Builds the entity of one record.
+     * @param fields the fields of the record
+     * @param positions the positions returned by {@link #mapHeader(String[])}
+     * @return the entity
+     * @throws IllegalArgumentException if a field is missing, the id is empty or not positive, or a field is not
+     * a number where one is expected
+     */
+    T parse(String[] fields, int[] positions) {
+        return factory.apply(new Record(fields, positions));
+    }
+
+    /**
+     * Validates and writes a chunk of entities with the bulk method of the business logic.
+     * @param entities the entities to write
+     * @return the written entities and the rejected ones by their position in the list
+     */
+    BatchResult<T> write(List<T> entities) {
+        return writer.apply(entities);
+    }
+
+    /**
+     * The fields of one record, read by the position of the target column.
+     */
+    private final class Record {
+        private final String[] fields;
+        private final int[] positions;
+
+        private Record(String[] fields, int[] positions) {
+            this.fields = fields;
+            this.positions = positions;
+        }
+
+        String getString(int column) {
+            int position = positions[column];
+            if (position >= fields.length) {
+                throw new IllegalArgumentException("The column " + columns[column] + " is missing!");
+            }
+            return fields[position];
+        }
+
+        int getInt(int column) {
+            String value = getString(column);
+            if (column == 0 && value.isBlank()) {
+                throw new IllegalArgumentException("The id must not be empty!");
+            }
+            int number;
+            try {
+                number = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The " + columns[column] + " must be a number!");
+            }
+            if (column == 0 && number <= 0) {
+                throw new IllegalArgumentException("The id must be positive!");
+            }
+            return number;
+        }
+    }
+}
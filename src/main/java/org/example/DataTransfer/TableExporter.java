@@ -0,0 +1,72 @@
+package org.example.DataTransfer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Exports a whole table to files. The rows are read through a database cursor and written one at a time
+ * by an {@link ExportWriter}, so memory use stays the same whatever the number of rows.
+ * @param <T> the type of the exported entity
+ */
+public final class TableExporter<T> {
+    private final ExportTarget<T> target;
+    private final Path directory;
+    private final ExportFormat format;
+    private final boolean gzip;
+    private final long maxFileBytes;
+
+    /**
+     * @param target the table to export
+     * @param directory where the files are created
+     * @param format the file format
+     * @param gzip whether to compress the files
+     * @param maxFileBytes the size after which a new file is started, or 0 for a single file
+     */
+    public TableExporter(ExportTarget<T> target, Path directory, ExportFormat format, boolean gzip, long maxFileBytes) {
+        if (maxFileBytes < 0) {
+            throw new IllegalArgumentException("The file size limit must not be negative!");
+        }
+        this.target = target;
+        this.directory = directory;
+        this.format = format;
+        this.gzip = gzip;
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    /**
+     * Writes every row of the table. If the table cannot be read the files written so far are deleted,
+     * so a failed export never leaves behind what looks like a complete dump of an empty table.
+     * @return the number of rows and the files written
+     * @throws IOException if a file cannot be written or the table cannot be read
+     */
+    public ExportReport run() throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        long rows = 0;
+        ExportWriter writer = new ExportWriter(directory, target.getTable(), format, target.getColumns(),
+                gzip, maxFileBytes);
+        try (Stream<T> stream = target.stream(); writer) {
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                target.write(writer, iterator.next());
+                writer.endRow();
+                rows++;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (IllegalStateException e) {
+            for (Path file : writer.getFiles()) {
+                Files.deleteIfExists(file);
+            }
+            throw new IOException("The table " + target.getTable() + " could not be exported: " + e.getMessage(), e);
+        }
+        List<Path> files = List.copyOf(writer.getFiles());
+        return new ExportReport(target.getTable(), rows, writer.getBytes(), files,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+}
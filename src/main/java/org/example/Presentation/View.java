@@ -1,24 +1,36 @@
 package org.example.Presentation;
 
 
+import org.example.BusinessLogic.BillBLL;
 import org.example.BusinessLogic.ClientBLL;
+import org.example.BusinessLogic.InventoryService;
 import org.example.BusinessLogic.OrdersBLL;
 import org.example.BusinessLogic.ProductBLL;
+import org.example.BusinessLogic.SalesAggregates;
+import org.example.DataAccess.QueryCache;
+import org.example.DataAccess.Schema;
 import org.example.Model.Bill;
 import org.example.Model.Client;
 import org.example.Model.Orders;
 import org.example.Model.Product;
+import org.example.PrimitiveCollections.IntArrayList;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.lang.reflect.Field;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * View class that creates the GUI for the application
  */
 
 public class View extends JFrame {
+    private static final int CACHE_SIZE = 1000;
+    private static final long CACHE_TTL_MILLIS = 60_000;
+    private static final int QUERY_CACHE_ENTRIES = 32;
+
     public View() throws IllegalAccessException {
 
         setTitle(" Management");
@@ -139,15 +151,17 @@ public class View extends JFrame {
         updateButton.addActionListener(e -> {
             ClientBLL clientBLL = new ClientBLL();
             try {
+                Map<String, Object> changes = new LinkedHashMap<>();
                 if (!nameUpdateField.getText().equals("")) {
-                    clientBLL.update(Integer.parseInt(idUpdateField.getText()), "name", nameUpdateField.getText());
+                    changes.put("name", nameUpdateField.getText());
                 }
                 if (!addressUpdateField.getText().equals("")) {
-                    clientBLL.update(Integer.parseInt(idUpdateField.getText()), "address", addressUpdateField.getText());
+                    changes.put("address", addressUpdateField.getText());
                 }
                 if (!emailUpdateField.getText().equals("")) {
-                    clientBLL.update(Integer.parseInt(idUpdateField.getText()), "email", emailUpdateField.getText());
+                    changes.put("email", emailUpdateField.getText());
                 }
+                clientBLL.update(Integer.parseInt(idUpdateField.getText()), changes, false);
                 //refreshes table
                 model.setRowCount(0);
                 List<Client> newClients = clientDataService.findAllClients();
@@ -203,15 +217,8 @@ public class View extends JFrame {
             try {
 
                 int id=Integer.parseInt(idDeleteField.getText());
-                OrdersBLL ordersBLL = new OrdersBLL();
-                //find the orders that have the client id and delete them
-                List<Orders> orders = ordersBLL.findAllOrders();
-                for(int i=0; i<orders.size();i++){
-                    if(orders.get(i).getClient()==id){
-                        ordersBLL.deleteOrders(orders.get(i).getId());
-                    }
-                }
-                clientBLL.deleteClient(id);
+                //delete the client together with its orders and their bills
+                clientBLL.deleteClientCascade(id);
                 model.setRowCount(0);
                 List<Client> newClients = clientDataService.findAllClients();
                 for (Client client : newClients) {
@@ -325,15 +332,17 @@ public class View extends JFrame {
         PupdateButton.addActionListener(e -> {
             ProductBLL productBLL = new ProductBLL();
             try {
+                Map<String, Object> changes = new LinkedHashMap<>();
                 if (!PnameUpdateField.getText().equals("")) {
-                    productBLL.update(Integer.parseInt(PidUpdateField.getText()), "name", PnameUpdateField.getText());
+                    changes.put("name", PnameUpdateField.getText());
                 }
                 if (!PquantityUpdateField.getText().equals("")) {
-                    productBLL.update(Integer.parseInt(PidUpdateField.getText()), "quantityPro", PquantityUpdateField.getText());
+                    changes.put("quantityPro", PquantityUpdateField.getText());
                 }
                 if (!PpriceUpdateField.getText().equals("")) {
-                    productBLL.update(Integer.parseInt(PidUpdateField.getText()), "price", PpriceUpdateField.getText());
+                    changes.put("price", PpriceUpdateField.getText());
                 }
+                productBLL.update(Integer.parseInt(PidUpdateField.getText()), changes, false);
                 prodModel.setRowCount(0);
                 List<Product> newProducts = productDataService.findAllProducts();
                 for (Product product : newProducts) {
@@ -419,8 +428,8 @@ public class View extends JFrame {
         billScrollPane.setBounds(50, 50, 700, 700);
         billPanel.add(billScrollPane);
         billModel.setRowCount(0);
-        Bill billDataService = new Bill(0,0,0);
-        List<Bill> bills = billDataService.findAll();
+        BillBLL billDataService = new BillBLL();
+        List<Bill> bills = billDataService.findAllBills();
         for (Bill bill : bills) {
             billModel.addRow(new Object[]{bill.id(), bill.idOrder(), bill.total()});
         }
@@ -472,9 +481,9 @@ public class View extends JFrame {
         ordersPanel.add(OclientField);
 
         ClientBLL OclientDataService = new ClientBLL();
-        List<Integer> Oclients = OclientDataService.getClientsId();
-        for (Integer client : Oclients) {
-            OclientField.addItem(client.toString());
+        IntArrayList Oclients = OclientDataService.getClientsId();
+        for (int i = 0; i < Oclients.size(); i++) {
+            OclientField.addItem(Integer.toString(Oclients.get(i)));
         }
 
         JLabel OproductLabel = new JLabel("Prod ID");
@@ -486,9 +495,9 @@ public class View extends JFrame {
         ordersPanel.add(OproductField);
 
         ProductBLL OproductDataService = new ProductBLL();
-        List<Integer> Oproducts = OproductDataService.getProductsId();
-        for (Integer product : Oproducts) {
-            OproductField.addItem(product.toString());
+        IntArrayList Oproducts = OproductDataService.getProductsId();
+        for (int i = 0; i < Oproducts.size(); i++) {
+            OproductField.addItem(Integer.toString(Oproducts.get(i)));
         }
 
         JLabel OquantityLabel = new JLabel("Quantity");
@@ -505,7 +514,7 @@ public class View extends JFrame {
             ProductBLL prod=new ProductBLL();
             try {
                 //checking if the quantity is enough for the product to order
-                if(Integer.parseInt(OquantityField.getText())>prod.findProductById(Integer.parseInt(OproductField.getSelectedItem().toString())).getQuantityPro()){
+                if(Integer.parseInt(OquantityField.getText())>prod.availableStock(Integer.parseInt(OproductField.getSelectedItem().toString()))){
                     JOptionPane.showMessageDialog(null, "The quantity of the product is not enough!");
                 }
                 ordersBLL.insertOrders(new Orders(Integer.parseInt(OidField.getText()), Integer.parseInt(OclientField.getSelectedItem().toString()), Integer.parseInt(OproductField.getSelectedItem().toString()), Integer.parseInt(OquantityField.getText())));
@@ -519,8 +528,7 @@ public class View extends JFrame {
                 prodModel.addRow(new Object[]{product.getId(), product.getName(), product.getQuantityPro(), product.getPrice()});
             }
             billModel.setRowCount(0);
-            Bill ObillDataService = new Bill(0,0,0);
-            List<Bill> Obills = billDataService.findAll();
+            List<Bill> Obills = billDataService.findAllBills();
             for (Bill bill : Obills) {
                 billModel.addRow(new Object[]{bill.id(), bill.idOrder(), bill.total()});
             }
@@ -542,8 +550,8 @@ public class View extends JFrame {
         OclientUpdateField.setBounds(100, 225, 100, 30);
         ordersPanel.add(OclientUpdateField);
 
-        for (Integer client : Oclients) {
-            OclientUpdateField.addItem(client.toString());
+        for (int i = 0; i < Oclients.size(); i++) {
+            OclientUpdateField.addItem(Integer.toString(Oclients.get(i)));
         }
 
         JLabel OproductUpdateLabel = new JLabel("Prod ID");
@@ -554,8 +562,8 @@ public class View extends JFrame {
         OproductUpdateField.setBounds(100, 250, 100, 30);
         ordersPanel.add(OproductUpdateField);
 
-        for (Integer product : Oproducts) {
-            OproductUpdateField.addItem(product.toString());
+        for (int i = 0; i < Oproducts.size(); i++) {
+            OproductUpdateField.addItem(Integer.toString(Oproducts.get(i)));
         }
 
         JLabel OquantityUpdateLabel = new JLabel("Quantity");
@@ -576,21 +584,21 @@ public class View extends JFrame {
                     ProductBLL productBL = new ProductBLL();
                     int id=Integer.parseInt(OidUpdateField.getText());
                     Orders o=ordersBLL.findOrdersById(id);
-                    //update the quantity of the product by adding the quantity ordered before the update to the quantity
-                    if(Integer.parseInt(OquantityUpdateField.getText())>OproductDataService.findProductById(Integer.parseInt(OproductField.getSelectedItem().toString())).getQuantityPro()){
+                    //take the new quantity out of the product stock, the check and the decrement are one statement
+                    if(!productBL.reserveStock(o.getProduct(), Integer.parseInt(OquantityUpdateField.getText()))){
                         ok=0;
                         JOptionPane.showMessageDialog(null, "The quantity of the product is not enough!");
-                    }else{
-                        productBL.update(o.getProduct(), "quantityPro", productBL.findProductById(o.getProduct()).getQuantityPro() - Integer.parseInt(OquantityUpdateField.getText()));
                     }
                 }
+                Map<String, Object> changes = new LinkedHashMap<>();
                 if (!OclientUpdateField.getSelectedItem().toString().equals("") && ok==1) {
-                    ordersBLL.update(Integer.parseInt(OidUpdateField.getText()), "client", OclientUpdateField.getSelectedItem().toString());
+                    changes.put("client", OclientUpdateField.getSelectedItem().toString());
                 }
 
                 if (!OproductUpdateField.getSelectedItem().toString().equals("") && ok==1) {
-                    ordersBLL.update(Integer.parseInt(OidUpdateField.getText()), "product", OproductUpdateField.getSelectedItem().toString());
+                    changes.put("product", OproductUpdateField.getSelectedItem().toString());
                 }
+                ordersBLL.update(Integer.parseInt(OidUpdateField.getText()), changes, false);
                 //checking if the quantity is enough for the product to order
 
 
@@ -601,8 +609,7 @@ public class View extends JFrame {
                 }
 
                 billModel.setRowCount(0);
-                Bill ObillDataService = new Bill(0,0,0);
-                List<Bill> Obills = billDataService.findAll();
+                List<Bill> Obills = billDataService.findAllBills();
                 for (Bill bill : Obills) {
                     billModel.addRow(new Object[]{bill.id(), bill.idOrder(), bill.total()});
                 }
@@ -652,21 +659,14 @@ public class View extends JFrame {
             try {
                 if (!OidDeleteField.getText().equals("")) {
                     int idToDelete = Integer.parseInt(OidDeleteField.getText());
-                    List<Bill> billz = billDataService.findAll();
-                    for (Bill b : billz) {
-                        if (b.idOrder() == idToDelete) {
-                            b.delete(idToDelete);
-                        }
-                    }
-                    ordersBLL.deleteOrders(idToDelete);
+                    ordersBLL.deleteOrdersCascade(idToDelete);
                     orderModel.setRowCount(0);
                     List<Orders> newOrders = ordersDataService.findAllOrders();
                     for (Orders order : newOrders) {
                         orderModel.addRow(new Object[]{order.getId(), order.getClient(), order.getProduct(), order.getQuantityOrd()});
                     }
                     //update BILL view as well
-                    Bill billDataService2 = new Bill(0,0,0);
-                    List<Bill> bills2 = billDataService2.findAll();
+                    List<Bill> bills2 = billDataService.findAllBills();
                     for (Bill bill : bills2) {
                         billModel.addRow(new Object[]{bill.id(), bill.idOrder(), bill.total()});
                     }
@@ -688,6 +688,12 @@ public class View extends JFrame {
         }
     }
     public static void main(String[] args) throws IllegalAccessException {
+        Schema.ensureIndexes();
+        InventoryService.getInstance().start();
+        SalesAggregates.getInstance().start();
+        new ClientBLL().enableCache(CACHE_SIZE, CACHE_TTL_MILLIS);
+        new ProductBLL().enableCache(CACHE_SIZE, CACHE_TTL_MILLIS);
+        QueryCache.getInstance().enable(QUERY_CACHE_ENTRIES, CACHE_TTL_MILLIS);
         View view = new View();
         view.setVisible(true);
     }
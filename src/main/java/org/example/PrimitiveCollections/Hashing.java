@@ -0,0 +1,32 @@
+package org.example.PrimitiveCollections;
+
+/**
+ * Hash and sizing helpers shared by the open-addressing collections.
+ */
+final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * Spreads the bits of a key so that consecutive ids do not fill consecutive slots.
+     * @param key the key to hash
+     * @return the mixed hash
+     */
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @param expectedSize the number of keys the table must hold
+     * @return a power-of-two capacity that keeps the table at most half full
+     */
+    static int capacityFor(int expectedSize) {
+        int capacity = 8;
+        while (capacity >> 1 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
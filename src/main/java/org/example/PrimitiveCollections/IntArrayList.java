@@ -0,0 +1,181 @@
+package org.example.PrimitiveCollections;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Growable list of int values stored in one int array, without boxing.
+ */
+public final class IntArrayList {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates an empty list.
+     */
+    public IntArrayList() {
+        values = EMPTY;
+    }
+
+    /**
+     * Creates an empty list with room for capacity values.
+     * @param capacity the initial capacity
+     */
+    public IntArrayList(int capacity) {
+        values = capacity == 0 ? EMPTY : new int[capacity];
+    }
+
+    /**
+     * Creates a list holding a copy of an array.
+     * @param values the values of the list
+     * @return the new list
+     */
+    public static IntArrayList of(int... values) {
+        IntArrayList list = new IntArrayList(values.length);
+        System.arraycopy(values, 0, list.values, 0, values.length);
+        list.size = values.length;
+        return list;
+    }
+
+    /**
+     * Appends a value.
+     * @param value the value to add
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(8, size + (size >> 1)));
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * @param index the position of the value
+     * @return the value at index
+     * @throws IndexOutOfBoundsException if index is not smaller than size
+     */
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Replaces the value at a position.
+     * @param index the position of the value
+     * @param value the new value
+     */
+    public void set(int index, int value) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        values[index] = value;
+    }
+
+    /**
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the list has no values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Searches the list from the start. Use {@link IntHashSet} for repeated lookups.
+     * @param value the value to find
+     * @return the position of the first occurrence, or -1
+     */
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param value the value to find
+     * @return true if the list contains the value
+     */
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Sorts the values in ascending order.
+     */
+    public void sort() {
+        Arrays.sort(values, 0, size);
+    }
+
+    /**
+     * Searches a list sorted with {@link #sort()}.
+     * @param value the value to find
+     * @return true if the list contains the value
+     */
+    public boolean containsSorted(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    /**
+     * Removes every value.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Passes every value to an action, in order.
+     * @param action the action to run
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    /**
+     * @return a new array with the values of the list
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * @return a list with the same values that does not share storage with this one
+     */
+    public IntArrayList copy() {
+        return of(toArray());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof IntArrayList other) || other.size != size) {
+            return false;
+        }
+        return Arrays.equals(values, 0, size, other.values, 0, size);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + values[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,200 @@
+package org.example.PrimitiveCollections;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of int values in an open-addressing table with linear probing, without boxing.
+ * One value is reserved as the marker of free slots and is tracked separately when it is added.
+ */
+public final class IntHashSet {
+    private static final int FREE = 0;
+
+    private int[] slots;
+    private int mask;
+    private int size;
+    private boolean containsFree;
+
+    /**
+     * Creates an empty set.
+     */
+    public IntHashSet() {
+        this(8);
+    }
+
+    /**
+     * Creates an empty set that holds expectedSize values without growing.
+     * @param expectedSize the expected number of values
+     */
+    public IntHashSet(int expectedSize) {
+        int capacity = Hashing.capacityFor(expectedSize);
+        slots = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Creates a set of the values of a list.
+     * @param values the values to add
+     * @return the new set
+     */
+    public static IntHashSet of(IntArrayList values) {
+        IntHashSet set = new IntHashSet(values.size());
+        values.forEach(set::add);
+        return set;
+    }
+
+    /**
+     * Adds a value.
+     * @param value the value to add
+     * @return true if the value was not in the set
+     */
+    public boolean add(int value) {
+        if (value == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+        int i = Hashing.mix(value) & mask;
+        int slot;
+        while ((slot = slots[i]) != FREE) {
+            if (slot == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = value;
+        if (++size > (mask + 1) >> 1) {
+            rehash((mask + 1) << 1);
+        }
+        return true;
+    }
+
+    /**
+     * @param value the value to look up
+     * @return true if the set contains the value
+     */
+    public boolean contains(int value) {
+        if (value == FREE) {
+            return containsFree;
+        }
+        int i = Hashing.mix(value) & mask;
+        int slot;
+        while ((slot = slots[i]) != FREE) {
+            if (slot == value) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a value, shifting back the values probed past it so lookups need no tombstones.
+     * @param value the value to remove
+     * @return true if the value was in the set
+     */
+    public boolean remove(int value) {
+        if (value == FREE) {
+            if (!containsFree) {
+                return false;
+            }
+            containsFree = false;
+            size--;
+            return true;
+        }
+        int i = Hashing.mix(value) & mask;
+        int slot;
+        while ((slot = slots[i]) != value) {
+            if (slot == FREE) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        int gap = i;
+        int next = (gap + 1) & mask;
+        while ((slot = slots[next]) != FREE) {
+            int home = Hashing.mix(slot) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                slots[gap] = slot;
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[gap] = FREE;
+        size--;
+        return true;
+    }
+
+    /**
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the set has no values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Passes every value to an action, in no particular order.
+     * @param action the action to run
+     */
+    public void forEach(IntConsumer action) {
+        if (containsFree) {
+            action.accept(FREE);
+        }
+        for (int slot : slots) {
+            if (slot != FREE) {
+                action.accept(slot);
+            }
+        }
+    }
+
+    /**
+     * @return the values of the set, in no particular order
+     */
+    public IntArrayList toList() {
+        IntArrayList list = new IntArrayList(size);
+        forEach(list::add);
+        return list;
+    }
+
+    /**
+     * @return a set with the same values that does not share storage with this one
+     */
+    public IntHashSet copy() {
+        IntHashSet copy = new IntHashSet(0);
+        copy.slots = Arrays.copyOf(slots, slots.length);
+        copy.mask = mask;
+        copy.size = size;
+        copy.containsFree = containsFree;
+        return copy;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = slots;
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int slot : old) {
+            if (slot != FREE) {
+                int i = Hashing.mix(slot) & mask;
+                while (slots[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = slot;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IntHashSet" + toList();
+    }
+}
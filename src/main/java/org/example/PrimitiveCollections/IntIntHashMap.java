@@ -0,0 +1,245 @@
+package org.example.PrimitiveCollections;
+
+import java.util.Arrays;
+
+/**
+ * Map from int keys to int values in an open-addressing table with linear probing, without boxing.
+ * Keys and values live in two parallel arrays; key 0 is kept outside the table.
+ */
+public final class IntIntHashMap {
+    private static final int FREE = 0;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private boolean containsFreeKey;
+    private int freeKeyValue;
+
+    /**
+     * Creates an empty map.
+     */
+    public IntIntHashMap() {
+        this(8);
+    }
+
+    /**
+     * Creates an empty map that holds expectedSize entries without growing.
+     * @param expectedSize the expected number of entries
+     */
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Hashing.capacityFor(expectedSize);
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Callback of {@link #forEach(Entry)}.
+     */
+    @FunctionalInterface
+    public interface Entry {
+        void accept(int key, int value);
+    }
+
+    /**
+     * @param key the key to look up
+     * @param defaultValue the value returned when the key is absent
+     * @return the value of the key, or defaultValue
+     */
+    public int get(int key, int defaultValue) {
+        if (key == FREE) {
+            return containsFreeKey ? freeKeyValue : defaultValue;
+        }
+        int i = Hashing.mix(key) & mask;
+        int slot;
+        while ((slot = keys[i]) != FREE) {
+            if (slot == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * @param key the key to look up
+     * @return true if the map has a value for the key
+     */
+    public boolean containsKey(int key) {
+        if (key == FREE) {
+            return containsFreeKey;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Sets the value of a key.
+     * @param key the key
+     * @param value the new value
+     */
+    public void put(int key, int value) {
+        if (key == FREE) {
+            if (!containsFreeKey) {
+                containsFreeKey = true;
+                size++;
+            }
+            freeKeyValue = value;
+            return;
+        }
+        int i = slotOf(key);
+        values[i] = value;
+    }
+
+    /**
+     * Adds to the value of a key, starting from 0 when the key is absent.
+     * @param key the key
+     * @param delta the amount to add
+     * @return the new value
+     */
+    public int addTo(int key, int delta) {
+        if (key == FREE) {
+            if (!containsFreeKey) {
+                containsFreeKey = true;
+                size++;
+            }
+            return freeKeyValue += delta;
+        }
+        int i = slotOf(key);
+        return values[i] += delta;
+    }
+
+    /**
+     * Removes a key, shifting back the entries probed past it so lookups need no tombstones.
+     * @param key the key to remove
+     * @return true if the key was in the map
+     */
+    public boolean remove(int key) {
+        if (key == FREE) {
+            if (!containsFreeKey) {
+                return false;
+            }
+            containsFreeKey = false;
+            freeKeyValue = 0;
+            size--;
+            return true;
+        }
+        int gap = indexOf(key);
+        if (gap < 0) {
+            return false;
+        }
+        int next = (gap + 1) & mask;
+        int slot;
+        while ((slot = keys[next]) != FREE) {
+            int home = Hashing.mix(slot) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = slot;
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = FREE;
+        values[gap] = 0;
+        size--;
+        return true;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the map has no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Passes every entry to an action, in no particular order.
+     * @param action the action to run
+     */
+    public void forEach(Entry action) {
+        if (containsFreeKey) {
+            action.accept(FREE, freeKeyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        Arrays.fill(values, 0);
+        containsFreeKey = false;
+        freeKeyValue = 0;
+        size = 0;
+    }
+
+    private int indexOf(int key) {
+        int i = Hashing.mix(key) & mask;
+        int slot;
+        while ((slot = keys[i]) != FREE) {
+            if (slot == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the slot of a key, inserting the key with value 0 when it is absent.
+     */
+    private int slotOf(int key) {
+        int i = Hashing.mix(key) & mask;
+        int slot;
+        while ((slot = keys[i]) != FREE) {
+            if (slot == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size + 1 > (mask + 1) >> 1) {
+            rehash((mask + 1) << 1);
+            return slotOf(key);
+        }
+        keys[i] = key;
+        size++;
+        return i;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != FREE) {
+                int i = Hashing.mix(oldKeys[j]) & mask;
+                while (keys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        forEach((key, value) -> text.append(text.length() > 1 ? ", " : "").append(key).append('=').append(value));
+        return text.append('}').toString();
+    }
+}
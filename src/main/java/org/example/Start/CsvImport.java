@@ -0,0 +1,51 @@
+package org.example.Start;
+
+import org.example.BusinessLogic.ClientBLL;
+import org.example.BusinessLogic.InventoryService;
+import org.example.BusinessLogic.ProductBLL;
+import org.example.DataAccess.QueryCache;
+import org.example.DataAccess.Schema;
+import org.example.DataTransfer.CsvImporter;
+import org.example.DataTransfer.ImportReport;
+import org.example.DataTransfer.ImportTarget;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Imports a CSV file into the Client, Product or Orders table. Running it again after a failure
+ * continues from the last saved checkpoint.
+ * Usage: CsvImport table file [chunkSize]
+ */
+public class CsvImport {
+    private static final int CACHE_SIZE = 100_000;
+    private static final long CACHE_TTL_MILLIS = 60_000;
+    private static final int QUERY_CACHE_ENTRIES = 32;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CsvImport Client|Product|Orders file [chunkSize]");
+            System.exit(2);
+        }
+        ImportTarget<?> target = ImportTarget.forTable(args[0]);
+        Path file = Path.of(args[1]);
+        int chunkSize = args.length > 2 ? Integer.parseInt(args[2]) : CsvImporter.DEFAULT_CHUNK_SIZE;
+
+        Schema.ensureIndexes();
+        new ClientBLL().enableCache(CACHE_SIZE, CACHE_TTL_MILLIS);
+        new ProductBLL().enableCache(CACHE_SIZE, CACHE_TTL_MILLIS);
+        QueryCache.getInstance().enable(QUERY_CACHE_ENTRIES, CACHE_TTL_MILLIS);
+        InventoryService inventory = InventoryService.getInstance();
+        inventory.start();
+        try {
+            CsvImporter<?> importer = new CsvImporter<>(target, file, chunkSize);
+            ImportReport report = importer.run();
+            System.out.println(report);
+            if (report.rejected() > 0) {
+                System.out.println("Rejected rows: " + importer.getRejectFile());
+            }
+        } finally {
+            inventory.stop();
+        }
+    }
+}
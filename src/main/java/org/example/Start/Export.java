@@ -0,0 +1,64 @@
+package org.example.Start;
+
+import org.example.Connection.UnitOfWork;
+import org.example.DataTransfer.ExportFormat;
+import org.example.DataTransfer.ExportTarget;
+import org.example.DataTransfer.TableExporter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Exports tables to files, by default the Orders and Bill tables as CSV.
+ * All the tables are read in one read-only transaction, so the files are a consistent snapshot of the
+ * database: every bill in the export belongs to an exported order even while orders are being placed.
+ * Usage: Export directory [--format csv|json] [--gzip] [--split-mb size] [table...]
+ */
+public class Export {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: Export directory [--format csv|json] [--gzip] [--split-mb size] [table...]");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[0]);
+        ExportFormat format = ExportFormat.CSV;
+        boolean gzip = false;
+        long maxFileBytes = 0;
+        List<ExportTarget<?>> targets = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format" -> format = ExportFormat.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                case "--gzip" -> gzip = true;
+                case "--split-mb" -> maxFileBytes = Long.parseLong(args[++i]) * 1024 * 1024;
+                default -> targets.add(ExportTarget.forTable(args[i]));
+            }
+        }
+        if (targets.isEmpty()) {
+            targets.add(ExportTarget.ORDERS);
+            targets.add(ExportTarget.BILLS);
+        }
+        List<TableExporter<?>> exporters = new ArrayList<>();
+        for (ExportTarget<?> target : targets) {
+            exporters.add(new TableExporter<>(target, directory, format, gzip, maxFileBytes));
+        }
+        try {
+            UnitOfWork.executeReadOnly(() -> {
+                for (TableExporter<?> exporter : exporters) {
+                    try {
+                        System.out.println(exporter.run());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
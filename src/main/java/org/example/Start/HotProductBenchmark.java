@@ -0,0 +1,63 @@
+package org.example.Start;
+
+import org.example.BusinessLogic.InventoryService;
+import org.example.BusinessLogic.ProductBLL;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how many orders per second can reserve stock of one product as the number of threads grows,
+ * with the product on one counter and in hot mode. The in-memory counters are measured on their own, without
+ * the stock ledger rows an order writes in its transaction. Every reservation is given back right away, so the
+ * stock of the product is the same after the run.
+ * Usage: HotProductBenchmark productId [secondsPerRound]
+ */
+public class HotProductBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int productId = Integer.parseInt(args[0]);
+        long millis = args.length > 1 ? Long.parseLong(args[1]) * 1000 : 2000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        InventoryService inventory = InventoryService.getInstance();
+        inventory.start();
+        ProductBLL productBLL = new ProductBLL();
+        boolean wasHot = inventory.isHot(productId);
+        try {
+            for (boolean hot : new boolean[]{false, true}) {
+                productBLL.setHot(productId, hot);
+                for (int threads = 1; threads <= cores * 2; threads *= 2) {
+                    long perSecond = run(inventory, productId, threads, millis) * 1000 / millis;
+                    System.out.printf("%-6s %3d threads %,14d orders/s%n", hot ? "hot" : "single", threads, perSecond);
+                }
+            }
+        } finally {
+            productBLL.setHot(productId, wasHot);
+            inventory.stop();
+        }
+    }
+
+    private static long run(InventoryService inventory, int productId, int threads, long millis) throws InterruptedException {
+        LongAdder orders = new LongAdder();
+        long end = System.nanoTime() + millis * 1_000_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    if (inventory.reserve(productId, 1)) {
+                        inventory.release(productId, 1);
+                        orders.increment();
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return orders.sum();
+    }
+}